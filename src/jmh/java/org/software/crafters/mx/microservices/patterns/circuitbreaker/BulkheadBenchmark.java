@@ -0,0 +1,63 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/*
+ * Compares the platform thread pool bulkhead with the virtual thread one on a remote call blocking for
+ * 100 us, with many more callers than cores. VirtualThreadBulkhead only exists in a JDK 21 build, so the
+ * VIRTUAL_THREAD case is added by the jdk21 profile through jmh.profile.args rather than listed here.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class BulkheadBenchmark {
+
+    private static final String ARG = "Gerardo";
+    private static final int MAX_CONCURRENT_CALLS = 256;
+
+    private static final Function<String, String> BLOCKING_REMOTE_CALL = name -> {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100L));
+        return "Hello Gerardo!";
+    };
+    private static final Function<String, String> FALLBACK_METHOD = name -> "Hello World!";
+
+    @Param({"THREAD_POOL"})
+    private CircuitBreakerConfig.BulkheadType bulkheadType;
+
+    private SimpleCircuitBreaker<String, String> circuitBreaker;
+
+    @Setup
+    public void setup() {
+        CircuitBreakerConfig.Builder config = CircuitBreakerConfig.builder();
+        if (bulkheadType == CircuitBreakerConfig.BulkheadType.VIRTUAL_THREAD) {
+            config.virtualThreadBulkhead(MAX_CONCURRENT_CALLS);
+        } else {
+            config.threadPoolBulkhead(MAX_CONCURRENT_CALLS, MAX_CONCURRENT_CALLS);
+        }
+        circuitBreaker = new SimpleCircuitBreaker<>(BLOCKING_REMOTE_CALL, config.build(), FALLBACK_METHOD);
+    }
+
+    @Benchmark
+    public String blockingCall() {
+        return circuitBreaker.call(ARG);
+    }
+}
@@ -0,0 +1,182 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Cost of call() in each state and breaker mode on one thread, plus a 1, 4, 16 and 64 thread sweep of the
+ * closed success and open short-circuit paths, where every caller contends on the same state word.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimpleCircuitBreakerBenchmark {
+
+    private static final String ARG = "Gerardo";
+    private static final RuntimeException REMOTE_FAILURE = new RemoteFailure();
+
+    private static final Function<String, String> SUCCEEDING_REMOTE_CALL = name -> "Hello Gerardo!";
+    private static final Function<String, String> FAILING_REMOTE_CALL = name -> {
+        throw REMOTE_FAILURE;
+    };
+    private static final Function<String, String> FALLBACK_METHOD = name -> "Hello World!";
+
+    private SimpleCircuitBreaker<String, String> closed;
+    private SimpleCircuitBreaker<String, String> closedFailing;
+    private SimpleCircuitBreaker<String, String> open;
+    private SimpleCircuitBreaker<String, String> halfOpen;
+    private SimpleCircuitBreaker<String, String> countBasedSlidingWindow;
+    private SimpleCircuitBreaker<String, String> timeBasedSlidingWindow;
+    private SimpleCircuitBreaker<String, String> semaphoreBulkhead;
+    private SimpleCircuitBreaker<String, String> closedCachedTicker;
+    private SimpleCircuitBreaker<String, String> openCachedTicker;
+
+    @Setup
+    public void setup() {
+        closed = new SimpleCircuitBreaker<>(SUCCEEDING_REMOTE_CALL, FALLBACK_METHOD);
+        closedFailing = new SimpleCircuitBreaker<>(FAILING_REMOTE_CALL, Integer.MAX_VALUE, FALLBACK_METHOD);
+        open = new SimpleCircuitBreaker<>(FAILING_REMOTE_CALL, 1, Long.MAX_VALUE / 2, FALLBACK_METHOD);
+        callIgnoringFailure(open);
+        halfOpen = new SimpleCircuitBreaker<>(FAILING_REMOTE_CALL, 1, 0L, FALLBACK_METHOD);
+        callIgnoringFailure(halfOpen);
+        countBasedSlidingWindow = new SimpleCircuitBreaker<>(SUCCEEDING_REMOTE_CALL,
+                CircuitBreakerConfig.builder().countBasedSlidingWindow(100).build(), FALLBACK_METHOD);
+        timeBasedSlidingWindow = new SimpleCircuitBreaker<>(SUCCEEDING_REMOTE_CALL,
+                CircuitBreakerConfig.builder().timeBasedSlidingWindow(10).build(), FALLBACK_METHOD);
+        semaphoreBulkhead = new SimpleCircuitBreaker<>(SUCCEEDING_REMOTE_CALL,
+                CircuitBreakerConfig.builder().semaphoreBulkhead(Integer.MAX_VALUE).build(), FALLBACK_METHOD);
+        closedCachedTicker = new SimpleCircuitBreaker<>(SUCCEEDING_REMOTE_CALL,
+                CircuitBreakerConfig.builder().ticker(Ticker.cached()).build(), FALLBACK_METHOD);
+        openCachedTicker = new SimpleCircuitBreaker<>(FAILING_REMOTE_CALL,
+                CircuitBreakerConfig.builder().retryTimeout(Long.MAX_VALUE / 2).ticker(Ticker.cached()).build(),
+                FALLBACK_METHOD);
+        callIgnoringFailure(openCachedTicker);
+    }
+
+    @Benchmark
+    public String baseline() {
+        return SUCCEEDING_REMOTE_CALL.apply(ARG);
+    }
+
+    @Benchmark
+    public String closedSuccess() {
+        return closed.call(ARG);
+    }
+
+    @Benchmark
+    public String closedFailure() {
+        return callIgnoringFailure(closedFailing);
+    }
+
+    @Benchmark
+    public String openShortCircuit() {
+        return open.call(ARG);
+    }
+
+    @Benchmark
+    public String halfOpenFailedProbe() {
+        return halfOpen.call(ARG);
+    }
+
+    @Benchmark
+    public String countBasedSlidingWindowClosedSuccess() {
+        return countBasedSlidingWindow.call(ARG);
+    }
+
+    @Benchmark
+    public String timeBasedSlidingWindowClosedSuccess() {
+        return timeBasedSlidingWindow.call(ARG);
+    }
+
+    @Benchmark
+    public String semaphoreBulkheadClosedSuccess() {
+        return semaphoreBulkhead.call(ARG);
+    }
+
+    @Benchmark
+    public String cachedTickerClosedSuccess() {
+        return closedCachedTicker.call(ARG);
+    }
+
+    @Benchmark
+    public String cachedTickerOpenShortCircuit() {
+        return openCachedTicker.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String closedSuccessThreads1() {
+        return closed.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String closedSuccessThreads4() {
+        return closed.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String closedSuccessThreads16() {
+        return closed.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String closedSuccessThreads64() {
+        return closed.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String openShortCircuitThreads1() {
+        return open.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String openShortCircuitThreads4() {
+        return open.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String openShortCircuitThreads16() {
+        return open.call(ARG);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String openShortCircuitThreads64() {
+        return open.call(ARG);
+    }
+
+    private static String callIgnoringFailure(SimpleCircuitBreaker<String, String> circuitBreaker) {
+        try {
+            return circuitBreaker.call(ARG);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static final class RemoteFailure extends RuntimeException {
+        RemoteFailure() {
+            super("Remote service unavailable", null, false, false);
+        }
+    }
+}
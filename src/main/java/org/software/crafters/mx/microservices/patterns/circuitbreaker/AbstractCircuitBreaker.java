@@ -0,0 +1,131 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitBreakerEvent.Type;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+public abstract class AbstractCircuitBreaker {
+
+    protected final CircuitBreakerMetrics metrics;
+    private final CircuitBreakerEventPublisher eventPublisher;
+    final Ticker ticker;
+    final CircuitStateMachine stateMachine;
+    private final ExceptionClassifier exceptionClassifier;
+    private final Predicate<Object> recordResultPredicate;
+
+    AbstractCircuitBreaker(CircuitBreakerConfig config) {
+        this.metrics = config.getMetricsFactory().get();
+        this.eventPublisher = config.getEventPublisher();
+        this.ticker = config.getTicker();
+        this.stateMachine = new CircuitStateMachine(config, this::onStateTransition);
+        this.exceptionClassifier = ExceptionClassifier.of(config);
+        this.recordResultPredicate = config.getRecordResultPredicate();
+    }
+
+    long now() {
+        return TimeUnit.NANOSECONDS.toMillis(ticker.read());
+    }
+
+    long toEpochMillis(long time) {
+        return stateMachine.epochMillisAt(TimeUnit.NANOSECONDS.toMillis(time));
+    }
+
+    boolean isRecordedFailure(Throwable exception) {
+        return exceptionClassifier == null || exceptionClassifier.isFailure(exception);
+    }
+
+    boolean isFailedResult(Object result) {
+        return recordResultPredicate != null && recordResultPredicate.test(result);
+    }
+
+    void onSuccess(long end, long durationNanos) {
+        metrics.onSuccess(durationNanos);
+        publish(Type.SUCCESS, end, durationNanos, null, null);
+    }
+
+    void onFailure(long end, long durationNanos) {
+        metrics.onFailure(durationNanos);
+        publish(Type.FAILURE, end, durationNanos, null, null);
+    }
+
+    void onShortCircuit() {
+        metrics.onShortCircuit();
+        publish(Type.SHORT_CIRCUIT, 0L, null, null);
+    }
+
+    void onRejected() {
+        metrics.onRejected();
+        publish(Type.REJECTED, 0L, null, null);
+    }
+
+    void onFallbackFailure() {
+        metrics.onFallbackFailure();
+        publish(Type.FALLBACK_FAILURE, 0L, null, null);
+    }
+
+    void onStateTransition(State from, State to) {
+        metrics.onStateTransition(from, to);
+        publish(Type.STATE_TRANSITION, 0L, from, to);
+    }
+
+    private void publish(Type type, long durationNanos, State from, State to) {
+        if (eventPublisher != null) {
+            eventPublisher.publish(this, type, ticker.read(), durationNanos, from, to);
+        }
+    }
+
+    private void publish(Type type, long time, long durationNanos, State from, State to) {
+        if (eventPublisher != null) {
+            eventPublisher.publish(this, type, time, durationNanos, from, to);
+        }
+    }
+
+    public State getState() {
+        return stateMachine.currentState(now());
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return stateMachine.getConfig();
+    }
+
+    public void reconfigure(CircuitBreakerConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+        if (!getConfig().isReconfigurableTo(config)) {
+            throw new IllegalArgumentException("Only thresholds and timeouts can be reconfigured, "
+                    + "derive the config from the current one with CircuitBreakerConfig.from");
+        }
+        stateMachine.reconfigure(config);
+    }
+
+    public CircuitBreakerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getFailureThreshold() {
+        return getConfig().getFailureThreshold();
+    }
+
+    public long getRetryTimeout() {
+        return getConfig().getRetryTimeout();
+    }
+
+    public int getFailureCount() {
+        return stateMachine.getFailureCount();
+    }
+
+    public long getLastFailureTime() {
+        return stateMachine.getLastFailureTime();
+    }
+
+    public float getFailureRate() {
+        return stateMachine.getFailureRate(now());
+    }
+
+    public float getSlowCallRate() {
+        return stateMachine.getSlowCallRate(now());
+    }
+}
@@ -0,0 +1,113 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Additive-increase/multiplicative-decrease concurrency limit driven by the round-trip time of the calls.
+ * A call that fails, or that takes longer than RTT_TOLERANCE times the lowest observed round-trip time
+ * (and at least MIN_RTT_DEGRADATION more, to ignore scheduling noise on very fast calls), shrinks the
+ * limit by BACKOFF_RATIO. A successful call made while at least half the limit is in use grows it by one.
+ * The lowest round-trip time is re-sampled every RTT_SAMPLING_INTERVAL calls so that it follows the
+ * downstream when its no-load latency changes.
+ */
+final class AdaptiveBulkhead implements Bulkhead {
+
+    private static final BulkheadFullException BULKHEAD_FULL =
+            new BulkheadFullException("Adaptive bulkhead reached its concurrency limit");
+    private static final int MIN_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.9d;
+    private static final double RTT_TOLERANCE = 2.0d;
+    private static final long MIN_RTT_DEGRADATION = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long RTT_SAMPLING_INTERVAL = 1000L;
+
+    private final int maxLimit;
+    private final Ticker ticker;
+    private final AtomicLong limit;
+    private final AtomicInteger inFlight;
+    private final AtomicLong minRtt;
+    private final AtomicLong samples;
+    private final LongAdder rejectedCount;
+
+    AdaptiveBulkhead(int initialLimit, int maxLimit, Ticker ticker) {
+        this.maxLimit = maxLimit;
+        this.ticker = ticker;
+        this.limit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+        this.inFlight = new AtomicInteger();
+        this.minRtt = new AtomicLong(Long.MAX_VALUE);
+        this.samples = new AtomicLong();
+        this.rejectedCount = new LongAdder();
+    }
+
+    @Override
+    public <T, R> R execute(Function<T, R> call, T arg) {
+        int concurrentCalls = tryAcquire();
+        long start = ticker.read();
+        boolean failed = true;
+        try {
+            R result = call.apply(arg);
+            failed = false;
+            return result;
+        } finally {
+            inFlight.decrementAndGet();
+            onSample(ticker.read() - start, concurrentCalls, failed);
+        }
+    }
+
+    @Override
+    public int getAvailableConcurrentCalls() {
+        return Math.max(0, getLimit() - inFlight.get());
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    private int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejectedCount.increment();
+                throw BULKHEAD_FULL;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void onSample(long rtt, int concurrentCalls, boolean failed) {
+        if (!failed) {
+            if (samples.incrementAndGet() % RTT_SAMPLING_INTERVAL == 0L) {
+                minRtt.set(rtt);
+            } else {
+                minRtt.accumulateAndGet(rtt, Math::min);
+            }
+        }
+        long lowestRtt = minRtt.get();
+        boolean overloaded = failed || (rtt > lowestRtt * RTT_TOLERANCE && rtt - lowestRtt > MIN_RTT_DEGRADATION);
+        while (true) {
+            long current = limit.get();
+            double currentLimit = Double.longBitsToDouble(current);
+            double nextLimit;
+            if (overloaded) {
+                nextLimit = Math.max(MIN_LIMIT, currentLimit * BACKOFF_RATIO);
+            } else if (concurrentCalls * 2 >= currentLimit) {
+                nextLimit = Math.min(maxLimit, currentLimit + 1.0d);
+            } else {
+                return;
+            }
+            if (nextLimit == currentLimit || limit.compareAndSet(current, Double.doubleToRawLongBits(nextLimit))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitStateMachine.Settings;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class AsyncCircuitBreaker<T, R> extends AbstractCircuitBreaker {
+
+    private final Function<T, CompletionStage<R>> remoteCall;
+    private final Function<T, CompletionStage<R>> fallbackMethod;
+    private final ConcurrentMap<T, CompletableFuture<R>> inFlightCalls;
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public AsyncCircuitBreaker(Function<T, CompletionStage<R>> remoteCall,
+                               Function<T, CompletionStage<R>> fallbackMethod) {
+        this(remoteCall, CircuitBreakerConfig.ofDefaults(), fallbackMethod);
+    }
+
+    public AsyncCircuitBreaker(Function<T, CompletionStage<R>> remoteCall, CircuitBreakerConfig config,
+                               Function<T, CompletionStage<R>> fallbackMethod) {
+        super(config);
+        this.remoteCall = remoteCall;
+        this.fallbackMethod = fallbackMethod;
+        this.inFlightCalls = config.isRequestCoalescing() ? new ConcurrentHashMap<>() : null;
+    }
+
+    public CompletionStage<R> call(T arg) {
+        if (inFlightCalls == null || arg == null) {
+            return execute(arg);
+        }
+        CompletableFuture<R> flight = new CompletableFuture<>();
+        CompletableFuture<R> leader = inFlightCalls.putIfAbsent(arg, flight);
+        if (leader != null) {
+            coalescedCount.increment();
+            return leader.copy();
+        }
+        CompletionStage<R> stage;
+        try {
+            stage = execute(arg);
+        } catch (RuntimeException e) {
+            inFlightCalls.remove(arg, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        stage.whenComplete((result, throwable) -> {
+            inFlightCalls.remove(arg, flight);
+            if (throwable == null) {
+                flight.complete(result);
+            } else {
+                flight.completeExceptionally(throwable);
+            }
+        });
+        return flight.copy();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    private CompletionStage<R> execute(T arg) {
+        Settings settings = stateMachine.settings();
+        switch (stateMachine.tryAcquirePermission(settings, now())) {
+            case CLOSED:
+                return callRemote(settings, arg);
+            case OPEN:
+                onShortCircuit();
+                return callFallbackMethod(arg);
+            case HALF_OPEN:
+            default:
+                return probeRemote(settings, arg);
+        }
+    }
+
+    private CompletionStage<R> callRemote(Settings settings, T arg) {
+        long start = ticker.read();
+        return invokeRemoteCall(arg, settings.callTimeout)
+                .whenComplete((result, throwable) -> recordOutcome(settings, result, throwable, start, false));
+    }
+
+    private CompletionStage<R> probeRemote(Settings settings, T arg) {
+        long start = ticker.read();
+        return invokeRemoteCall(arg, stateMachine.probeTimeout(settings)).handle((result, throwable) -> {
+            if (recordOutcome(settings, result, throwable, start, true)) {
+                return callFallbackMethod(arg);
+            }
+            return throwable == null ? CompletableFuture.completedFuture(result)
+                    : CompletableFuture.<R>failedFuture(throwable);
+        }).thenCompose(Function.identity());
+    }
+
+    private CompletionStage<R> invokeRemoteCall(T arg, long callTimeout) {
+        try {
+            return TimeLimiter.call(remoteCall.apply(arg), callTimeout);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletionStage<R> callFallbackMethod(T arg) {
+        try {
+            return fallbackMethod.apply(arg);
+        } catch (RuntimeException e) {
+            onFallbackFailure();
+            throw e;
+        }
+    }
+
+    private boolean recordOutcome(Settings settings, R result, Throwable throwable, long start, boolean probe) {
+        if (throwable != null && !isRecordedFailure(unwrap(throwable))) {
+            if (probe) {
+                stateMachine.releasePermission();
+            }
+            return false;
+        }
+        long end = ticker.read();
+        long now = TimeUnit.NANOSECONDS.toMillis(end);
+        if (throwable == null && !isFailedResult(result)) {
+            onSuccess(end, end - start);
+            stateMachine.onSuccess(settings, now, end - start);
+            return false;
+        }
+        onFailure(end, end - start);
+        stateMachine.onFailure(settings, now, end - start);
+        return true;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+    }
+}
@@ -0,0 +1,357 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitStateMachine.Settings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+ * Breaker for downstreams exposing a batch endpoint. Single calls are accumulated until maxBatchSize of them
+ * are pending or maxBatchDelay microseconds have passed since the first one, and then dispatched together:
+ *
+ *   BatchingCircuitBreaker<T, R> circuitBreaker = BatchingCircuitBreaker.builder(batchCall, fallbackMethod)
+ *           .config(config).maxBatchSize(64).maxBatchDelay(500L).build();
+ *   R result = circuitBreaker.call(arg);
+ *
+ * A full batch is dispatched on the thread of the call that filled it, an expired one on the executor. The
+ * batch call returns one result per argument, in order, or throws PartialBatchFailureException to fail some
+ * elements only. While closed, every element counts as a call of its own; a half-open probe is one batch
+ * and counts once, failing if any element fails; while open, the whole batch goes to the fallback.
+ */
+public final class BatchingCircuitBreaker<T, R> extends AbstractCircuitBreaker implements AutoCloseable {
+
+    private static final AtomicInteger BATCHER_NUMBER = new AtomicInteger();
+
+    private final Function<List<T>, List<R>> batchCall;
+    private final Function<T, R> fallbackMethod;
+    private final int maxBatchSize;
+    private final long maxBatchDelay;
+    private final Executor executor;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ReentrantLock lock;
+    private List<PendingCall<T, R>> pendingCalls;
+    private ScheduledFuture<?> flushTimer;
+    private boolean closed;
+
+    private BatchingCircuitBreaker(Builder<T, R> builder) {
+        super(builder.config);
+        this.batchCall = builder.batchCall;
+        this.fallbackMethod = builder.fallbackMethod;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchDelay = builder.maxBatchDelay;
+        this.executor = builder.executor;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker-batcher-" + BATCHER_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.lock = new ReentrantLock();
+        this.pendingCalls = new ArrayList<>(maxBatchSize);
+    }
+
+    public static <T, R> Builder<T, R> builder(Function<List<T>, List<R>> batchCall, Function<T, R> fallbackMethod) {
+        return new Builder<>(batchCall, fallbackMethod);
+    }
+
+    public R call(T arg) throws RuntimeException {
+        CompletableFuture<R> result = submit(arg);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public CompletableFuture<R> submit(T arg) {
+        PendingCall<T, R> pendingCall = new PendingCall<>(arg);
+        List<PendingCall<T, R>> batch = null;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("BatchingCircuitBreaker is closed");
+            }
+            pendingCalls.add(pendingCall);
+            if (pendingCalls.size() >= maxBatchSize) {
+                batch = takePendingCalls();
+            } else if (flushTimer == null) {
+                flushTimer = scheduler.schedule(this::flushExpired, maxBatchDelay, TimeUnit.MICROSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return pendingCall.result;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    @Override
+    public void close() {
+        List<PendingCall<T, R>> batch;
+        lock.lock();
+        try {
+            closed = true;
+            batch = takePendingCalls();
+        } finally {
+            lock.unlock();
+        }
+        scheduler.shutdownNow();
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<PendingCall<T, R>> takePendingCalls() {
+        List<PendingCall<T, R>> batch = pendingCalls;
+        pendingCalls = new ArrayList<>(maxBatchSize);
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+        return batch;
+    }
+
+    private void flushExpired() {
+        List<PendingCall<T, R>> batch;
+        lock.lock();
+        try {
+            batch = takePendingCalls();
+        } finally {
+            lock.unlock();
+        }
+        if (!batch.isEmpty()) {
+            executor.execute(() -> dispatch(batch));
+        }
+    }
+
+    private void dispatch(List<PendingCall<T, R>> batch) {
+        try {
+            Settings settings = stateMachine.settings();
+            switch (stateMachine.tryAcquirePermission(settings, now())) {
+                case CLOSED:
+                    callRemote(settings, batch, false);
+                    break;
+                case OPEN:
+                    for (PendingCall<T, R> pendingCall : batch) {
+                        onShortCircuit();
+                        completeWithFallback(pendingCall);
+                    }
+                    break;
+                case HALF_OPEN:
+                default:
+                    callRemote(settings, batch, true);
+                    break;
+            }
+        } catch (Throwable e) {
+            // an Error or a sneaky checked exception must not leave the callers waiting forever
+            for (PendingCall<T, R> pendingCall : batch) {
+                pendingCall.result.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private void callRemote(Settings settings, List<PendingCall<T, R>> batch, boolean probe) {
+        List<T> args = new ArrayList<>(batch.size());
+        for (PendingCall<T, R> pendingCall : batch) {
+            args.add(pendingCall.arg);
+        }
+        long start = ticker.read();
+        List<?> results;
+        Map<Integer, ? extends RuntimeException> failures = Collections.emptyMap();
+        try {
+            results = invokeBatchCall(settings, args);
+        } catch (PartialBatchFailureException e) {
+            results = e.getResults();
+            failures = e.getFailures();
+        } catch (RuntimeException e) {
+            failBatch(settings, batch, e, start, probe);
+            return;
+        } catch (Throwable e) {
+            if (probe) {
+                stateMachine.releasePermission();
+            }
+            throw e;
+        }
+        if (results == null || results.size() != batch.size()) {
+            failBatch(settings, batch, new IllegalStateException(String.format(
+                    "Batch call returned %s results for %d arguments",
+                    results == null ? "no" : String.valueOf(results.size()), batch.size())), start, probe);
+            return;
+        }
+        long end = ticker.read();
+        long now = TimeUnit.NANOSECONDS.toMillis(end);
+        boolean anySucceeded = false;
+        boolean anyFailed = false;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingCall<T, R> pendingCall = batch.get(i);
+            RuntimeException failure = failures.get(i);
+            @SuppressWarnings("unchecked")
+            R result = (R) results.get(i);
+            if (failure != null && !isRecordedFailure(failure)) {
+                pendingCall.result.completeExceptionally(failure);
+            } else if (failure == null && !isFailedResult(result)) {
+                onSuccess(end, end - start);
+                if (!probe) {
+                    stateMachine.onSuccess(settings, now, end - start);
+                }
+                anySucceeded = true;
+                pendingCall.result.complete(result);
+            } else {
+                onFailure(end, end - start);
+                anyFailed = true;
+                if (probe) {
+                    completeWithFallback(pendingCall);
+                } else {
+                    stateMachine.onFailure(settings, now, end - start);
+                    if (failure != null) {
+                        pendingCall.result.completeExceptionally(failure);
+                    } else {
+                        pendingCall.result.complete(result);
+                    }
+                }
+            }
+        }
+        if (probe && anyFailed) {
+            stateMachine.onFailure(settings, now, end - start);
+        } else if (probe && anySucceeded) {
+            stateMachine.onSuccess(settings, now, end - start);
+        } else if (probe) {
+            stateMachine.releasePermission();
+        }
+    }
+
+    private List<R> invokeBatchCall(Settings settings, List<T> args) {
+        if (settings.callTimeout == 0L) {
+            return batchCall.apply(args);
+        }
+        return TimeLimiter.call(() -> batchCall.apply(args), settings.callTimeout);
+    }
+
+    private void failBatch(Settings settings, List<PendingCall<T, R>> batch, RuntimeException failure, long start,
+                           boolean probe) {
+        if (!isRecordedFailure(failure)) {
+            if (probe) {
+                stateMachine.releasePermission();
+            }
+            for (PendingCall<T, R> pendingCall : batch) {
+                pendingCall.result.completeExceptionally(failure);
+            }
+            return;
+        }
+        long end = ticker.read();
+        long now = TimeUnit.NANOSECONDS.toMillis(end);
+        for (PendingCall<T, R> pendingCall : batch) {
+            onFailure(end, end - start);
+            if (probe) {
+                completeWithFallback(pendingCall);
+            } else {
+                stateMachine.onFailure(settings, now, end - start);
+                pendingCall.result.completeExceptionally(failure);
+            }
+        }
+        if (probe) {
+            stateMachine.onFailure(settings, now, end - start);
+        }
+    }
+
+    private void completeWithFallback(PendingCall<T, R> pendingCall) {
+        try {
+            pendingCall.result.complete(fallbackMethod.apply(pendingCall.arg));
+        } catch (RuntimeException e) {
+            onFallbackFailure();
+            pendingCall.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingCall<T, R> {
+        private final T arg;
+        private final CompletableFuture<R> result;
+
+        private PendingCall(T arg) {
+            this.arg = arg;
+            this.result = new CompletableFuture<>();
+        }
+    }
+
+    public static final class Builder<T, R> {
+        private final Function<List<T>, List<R>> batchCall;
+        private final Function<T, R> fallbackMethod;
+        private CircuitBreakerConfig config = CircuitBreakerConfig.ofDefaults();
+        private int maxBatchSize = 100;
+        private long maxBatchDelay = 1_000L;
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder(Function<List<T>, List<R>> batchCall, Function<T, R> fallbackMethod) {
+            this.batchCall = batchCall;
+            this.fallbackMethod = fallbackMethod;
+        }
+
+        public Builder<T, R> config(CircuitBreakerConfig config) {
+            this.config = config;
+            return this;
+        }
+
+        public Builder<T, R> maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder<T, R> maxBatchDelay(long maxBatchDelay) {
+            this.maxBatchDelay = maxBatchDelay;
+            return this;
+        }
+
+        public Builder<T, R> executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public BatchingCircuitBreaker<T, R> build() {
+            if (batchCall == null || fallbackMethod == null) {
+                throw new IllegalArgumentException("batchCall and fallbackMethod cannot be null");
+            }
+            if (config == null || executor == null) {
+                throw new IllegalArgumentException("config and executor cannot be null");
+            }
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+            }
+            if (maxBatchDelay < 1L) {
+                throw new IllegalArgumentException("maxBatchDelay must be greater than 0");
+            }
+            return new BatchingCircuitBreaker<>(this);
+        }
+    }
+}
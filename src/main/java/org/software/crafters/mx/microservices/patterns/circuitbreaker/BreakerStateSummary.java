@@ -0,0 +1,58 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+public final class BreakerStateSummary {
+
+    private final String nodeId;
+    private final String name;
+    private final State state;
+    private final int numberOfCalls;
+    private final int numberOfFailedCalls;
+    private final long lastFailureTime;
+    private final long publishedAt;
+
+    public BreakerStateSummary(String nodeId, String name, State state, int numberOfCalls, int numberOfFailedCalls,
+                               long lastFailureTime, long publishedAt) {
+        this.nodeId = nodeId;
+        this.name = name;
+        this.state = state;
+        this.numberOfCalls = numberOfCalls;
+        this.numberOfFailedCalls = numberOfFailedCalls;
+        this.lastFailureTime = lastFailureTime;
+        this.publishedAt = publishedAt;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getNumberOfCalls() {
+        return numberOfCalls;
+    }
+
+    public int getNumberOfFailedCalls() {
+        return numberOfFailedCalls;
+    }
+
+    public long getLastFailureTime() {
+        return lastFailureTime;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return nodeId + "/" + name + " " + state + " " + numberOfFailedCalls + "/" + numberOfCalls;
+    }
+}
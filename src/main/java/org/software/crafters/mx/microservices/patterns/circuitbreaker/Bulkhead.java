@@ -0,0 +1,38 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.function.Function;
+
+interface Bulkhead {
+
+    static Bulkhead of(CircuitBreakerConfig config) {
+        switch (config.getBulkheadType()) {
+            case SEMAPHORE:
+                return new SemaphoreBulkhead(config.getMaxConcurrentCalls());
+            case THREAD_POOL:
+                return new ThreadPoolBulkhead(config.getMaxConcurrentCalls(), config.getBulkheadQueueCapacity());
+            case ADAPTIVE:
+                return new AdaptiveBulkhead(config.getInitialConcurrencyLimit(), config.getMaxConcurrentCalls(),
+                        config.getTicker());
+            case VIRTUAL_THREAD:
+                return virtualThreadBulkhead(config.getMaxConcurrentCalls());
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    private static Bulkhead virtualThreadBulkhead(int maxConcurrentCalls) {
+        try {
+            return (Bulkhead) Class.forName(Bulkhead.class.getPackageName() + ".VirtualThreadBulkhead")
+                    .getDeclaredConstructor(int.class).newInstance(maxConcurrentCalls);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("VIRTUAL_THREAD bulkhead requires Java 21 and the jdk21 build", e);
+        }
+    }
+
+    <T, R> R execute(Function<T, R> call, T arg) throws BulkheadFullException;
+
+    int getAvailableConcurrentCalls();
+
+    long getRejectedCount();
+}
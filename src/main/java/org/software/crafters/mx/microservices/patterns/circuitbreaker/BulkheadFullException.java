@@ -0,0 +1,8 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+class BulkheadFullException extends RuntimeException {
+
+    BulkheadFullException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,57 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Reads a volatile field refreshed from System.nanoTime by a background daemon thread, so a read costs a
+ * plain load instead of a clock call. Durations shorter than the resolution read as 0, which makes this
+ * ticker a fit for retry timeouts and windows in milliseconds, not for sub-millisecond latencies.
+ */
+public final class CachedTicker implements Ticker, AutoCloseable {
+
+    private static final AtomicInteger TICKER_NUMBER = new AtomicInteger();
+
+    private final long resolutionNanos;
+    private final Thread updater;
+    private volatile long nanos;
+    private volatile boolean running;
+
+    public CachedTicker(long resolution, TimeUnit unit) {
+        if (resolution < 1L) {
+            throw new IllegalArgumentException("resolution must be greater than 0");
+        }
+        this.resolutionNanos = unit.toNanos(resolution);
+        this.nanos = System.nanoTime();
+        this.running = true;
+        this.updater = new Thread(this::update, "circuit-breaker-ticker-" + TICKER_NUMBER.incrementAndGet());
+        this.updater.setDaemon(true);
+        this.updater.start();
+    }
+
+    @Override
+    public long read() {
+        return nanos;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(updater);
+    }
+
+    private void update() {
+        while (running) {
+            nanos = System.nanoTime();
+            LockSupport.parkNanos(this, resolutionNanos);
+        }
+    }
+
+    static final class Shared {
+        static final CachedTicker INSTANCE = new CachedTicker(1L, TimeUnit.MILLISECONDS);
+
+        private Shared() {
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+ * Fallback serving the last successful result of the remote call for the same argument, as long as it is
+ * not older than maxStaleness, and delegating to another fallback otherwise:
+ *
+ *   CachingFallback<T, R> cache = CachingFallback.builder(fallbackMethod).maximumSize(10_000).build();
+ *   new SimpleCircuitBreaker<>(cache.recording(remoteCall, config), config, cache);
+ *
+ * Given the breaker config, results its recordResult predicate classifies as failures are not cached, so
+ * an error payload is never served as the last good value.
+ *
+ * Results are kept in a ConcurrentHashMap, so recording and serving them only touch the map and enqueue
+ * the change. The eviction policy, a segmented LRU where an entry recorded or served again moves from the
+ * probation to the protected segment, is maintained from those queues by a single drain task running on
+ * the executor, away from the calling threads.
+ */
+public final class CachingFallback<T, R> implements Function<T, R> {
+
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final float PROTECTED_RATIO = 0.8f;
+    private static final int ACCESS_BUFFER_CAPACITY = 256;
+
+    private final Function<T, R> fallbackMethod;
+    private final int maximumSize;
+    private final int maximumProtectedSize;
+    private final long maxStalenessNanos;
+    private final Ticker ticker;
+    private final Executor executor;
+    private final ConcurrentHashMap<T, Node<T, R>> data;
+    private final Queue<Node<T, R>> writeBuffer;
+    private final Queue<Node<T, R>> accessBuffer;
+    private final AtomicInteger accessBufferSize;
+    private final AtomicBoolean drainScheduled;
+    private final ReentrantLock evictionLock;
+    private final Node<T, R> probation;
+    private final Node<T, R> protectedSegment;
+    private int probationSize;
+    private int protectedSize;
+
+    private CachingFallback(Builder<T, R> builder) {
+        this.fallbackMethod = builder.fallbackMethod;
+        this.maximumSize = builder.maximumSize;
+        this.maximumProtectedSize = (int) (builder.maximumSize * PROTECTED_RATIO);
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxStaleness);
+        this.ticker = builder.ticker;
+        this.executor = builder.executor;
+        this.data = new ConcurrentHashMap<>();
+        this.writeBuffer = new ConcurrentLinkedQueue<>();
+        this.accessBuffer = new ConcurrentLinkedQueue<>();
+        this.accessBufferSize = new AtomicInteger();
+        this.drainScheduled = new AtomicBoolean();
+        this.evictionLock = new ReentrantLock();
+        this.probation = Node.sentinel();
+        this.protectedSegment = Node.sentinel();
+    }
+
+    public static <T, R> Builder<T, R> builder(Function<T, R> fallbackMethod) {
+        return new Builder<>(fallbackMethod);
+    }
+
+    public Function<T, R> recording(Function<T, R> remoteCall) {
+        return recording(remoteCall, result -> false);
+    }
+
+    public Function<T, R> recording(Function<T, R> remoteCall, CircuitBreakerConfig config) {
+        Predicate<Object> recordResultPredicate = config.getRecordResultPredicate();
+        return recording(remoteCall, recordResultPredicate == null ? result -> false : recordResultPredicate);
+    }
+
+    private Function<T, R> recording(Function<T, R> remoteCall, Predicate<Object> failedResult) {
+        return arg -> {
+            R result = remoteCall.apply(arg);
+            if (!failedResult.test(result)) {
+                record(arg, result);
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public R apply(T arg) {
+        Node<T, R> node = arg == null ? null : data.get(arg);
+        if (node != null) {
+            R value = node.value;
+            if (ticker.read() - node.writeTime <= maxStalenessNanos) {
+                onAccess(node);
+                return value;
+            }
+        }
+        return fallbackMethod.apply(arg);
+    }
+
+    public void record(T arg, R result) {
+        if (arg == null || result == null) {
+            return;
+        }
+        long now = ticker.read();
+        Node<T, R> node = data.get(arg);
+        if (node == null) {
+            Node<T, R> created = new Node<>(arg, result, now);
+            node = data.putIfAbsent(arg, created);
+            if (node == null) {
+                writeBuffer.add(created);
+                scheduleDrain();
+                return;
+            }
+        }
+        node.value = result;
+        node.writeTime = now;
+        onAccess(node);
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainBuffers();
+        } finally {
+            evictionLock.unlock();
+        }
+        rescheduleIfPending();
+    }
+
+    private void onAccess(Node<T, R> node) {
+        if (accessBufferSize.get() < ACCESS_BUFFER_CAPACITY) {
+            accessBufferSize.incrementAndGet();
+            accessBuffer.add(node);
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        if (evictionLock.tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+            rescheduleIfPending();
+        }
+    }
+
+    private void rescheduleIfPending() {
+        // a drain that found the lock held gave up, so the holder schedules another one for what is left
+        if (!writeBuffer.isEmpty() || !accessBuffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void drainBuffers() {
+        Node<T, R> node;
+        while ((node = writeBuffer.poll()) != null) {
+            if (node.segment == 0 && data.get(node.key) == node) {
+                link(probation, node, PROBATION);
+                probationSize++;
+            }
+        }
+        while ((node = accessBuffer.poll()) != null) {
+            accessBufferSize.decrementAndGet();
+            promote(node);
+        }
+        evict();
+    }
+
+    private void promote(Node<T, R> node) {
+        if (node.segment == PROBATION) {
+            unlink(node);
+            probationSize--;
+            link(protectedSegment, node, PROTECTED);
+            protectedSize++;
+            while (protectedSize > maximumProtectedSize) {
+                Node<T, R> demoted = protectedSegment.next;
+                unlink(demoted);
+                protectedSize--;
+                link(probation, demoted, PROBATION);
+                probationSize++;
+            }
+        } else if (node.segment == PROTECTED) {
+            unlink(node);
+            link(protectedSegment, node, PROTECTED);
+        }
+    }
+
+    private void evict() {
+        while (probationSize + protectedSize > maximumSize) {
+            Node<T, R> victim;
+            if (probationSize > 0) {
+                victim = probation.next;
+                probationSize--;
+            } else {
+                victim = protectedSegment.next;
+                protectedSize--;
+            }
+            unlink(victim);
+            victim.segment = -1;
+            data.remove(victim.key, victim);
+        }
+    }
+
+    private static <T, R> void link(Node<T, R> sentinel, Node<T, R> node, int segment) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+        node.segment = segment;
+    }
+
+    private static <T, R> void unlink(Node<T, R> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node<T, R> {
+        private final T key;
+        private volatile R value;
+        private volatile long writeTime;
+        private int segment;
+        private Node<T, R> prev;
+        private Node<T, R> next;
+
+        private Node(T key, R value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        private static <T, R> Node<T, R> sentinel() {
+            Node<T, R> sentinel = new Node<>(null, null, 0L);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+    }
+
+    public static final class Builder<T, R> {
+        private final Function<T, R> fallbackMethod;
+        private int maximumSize = 10_000;
+        private long maxStaleness = Long.MAX_VALUE / 1_000_000L;
+        private Ticker ticker = Ticker.system();
+        private Executor executor = ForkJoinPool.commonPool();
+
+        private Builder(Function<T, R> fallbackMethod) {
+            this.fallbackMethod = fallbackMethod;
+        }
+
+        public Builder<T, R> maximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<T, R> maxStaleness(long maxStaleness) {
+            this.maxStaleness = maxStaleness;
+            return this;
+        }
+
+        public Builder<T, R> ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public Builder<T, R> executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public CachingFallback<T, R> build() {
+            if (fallbackMethod == null) {
+                throw new IllegalArgumentException("fallbackMethod cannot be null");
+            }
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be greater than 0");
+            }
+            if (maxStaleness < 0L || maxStaleness > Long.MAX_VALUE / 1_000_000L) {
+                throw new IllegalArgumentException("maxStaleness must be in the range [0, Long.MAX_VALUE / 10^6]");
+            }
+            if (ticker == null || executor == null) {
+                throw new IllegalArgumentException("ticker and executor cannot be null");
+            }
+            return new CachingFallback<>(this);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+public class CallTimeoutException extends RuntimeException {
+
+    public CallTimeoutException(long callTimeout) {
+        super(String.format("Remote call did not complete within %d ms", callTimeout));
+    }
+}
@@ -0,0 +1,32 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/*
+ * Registers a CircuitBreakerRegistry, unless the application declares its own, and the refresher binding
+ * circuitbreaker.instances.<name>.* to it. The properties are applied once on startup, so an invalid value
+ * fails the context; call CircuitBreakerConfigRefresher.refresh() again whenever the environment changes.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CircuitBreakerProperties.class)
+public class CircuitBreakerAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        return CircuitBreakerRegistry.ofDefaults();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerConfigRefresher circuitBreakerConfigRefresher(CircuitBreakerRegistry registry,
+                                                                       Environment environment) {
+        CircuitBreakerConfigRefresher refresher = new CircuitBreakerConfigRefresher(registry, environment);
+        refresher.refresh();
+        return refresher;
+    }
+}
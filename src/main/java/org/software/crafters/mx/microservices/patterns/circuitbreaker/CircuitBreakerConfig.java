@@ -0,0 +1,435 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public final class CircuitBreakerConfig {
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 1;
+    private static final long DEFAULT_RETRY_TIMEOUT = 3000L;
+    private static final int DEFAULT_SLIDING_WINDOW_SIZE = 100;
+    private static final float DEFAULT_FAILURE_RATE_THRESHOLD = 50.0f;
+    private static final int DEFAULT_PERMITTED_NUMBER_OF_CALLS_IN_HALF_OPEN_STATE = 1;
+    private static final float DEFAULT_SUCCESS_RATE_THRESHOLD_IN_HALF_OPEN_STATE = 100.0f;
+    private static final long DEFAULT_CALL_TIMEOUT = 0L;
+    private static final long DEFAULT_SLOW_CALL_DURATION_THRESHOLD = 60000L;
+    private static final float DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100.0f;
+    private static final int DEFAULT_MAX_CONCURRENT_CALLS = 25;
+    private static final int DEFAULT_BULKHEAD_QUEUE_CAPACITY = 100;
+    private static final int DEFAULT_INITIAL_CONCURRENCY_LIMIT = 10;
+
+    private final int failureThreshold;
+    private final long retryTimeout;
+    private final RetryTimeoutStrategy retryTimeoutStrategy;
+    private final boolean customRetryTimeoutStrategy;
+    private final SlidingWindowType slidingWindowType;
+    private final int slidingWindowSize;
+    private final int minimumNumberOfCalls;
+    private final float failureRateThreshold;
+    private final int permittedNumberOfCallsInHalfOpenState;
+    private final float successRateThresholdInHalfOpenState;
+    private final long callTimeout;
+    private final long slowCallDurationThreshold;
+    private final float slowCallRateThreshold;
+    private final BulkheadType bulkheadType;
+    private final int maxConcurrentCalls;
+    private final int bulkheadQueueCapacity;
+    private final int initialConcurrencyLimit;
+    private final boolean requestCoalescing;
+    private final List<Class<? extends Throwable>> recordExceptions;
+    private final List<Class<? extends Throwable>> ignoreExceptions;
+    private final Predicate<Object> recordResultPredicate;
+    private final Supplier<? extends CircuitBreakerMetrics> metricsFactory;
+    private final CircuitBreakerEventPublisher eventPublisher;
+    private final Ticker ticker;
+
+    private CircuitBreakerConfig(Builder builder) {
+        this.failureThreshold = builder.failureThreshold;
+        this.retryTimeout = builder.retryTimeout;
+        this.retryTimeoutStrategy = builder.retryTimeoutStrategy == null
+                ? RetryTimeoutStrategy.fixed(builder.retryTimeout) : builder.retryTimeoutStrategy;
+        this.customRetryTimeoutStrategy = builder.retryTimeoutStrategy != null;
+        this.slidingWindowType = builder.slidingWindowType;
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumNumberOfCalls = builder.slidingWindowType == SlidingWindowType.COUNT_BASED
+                ? Math.min(builder.minimumNumberOfCalls, builder.slidingWindowSize) : builder.minimumNumberOfCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.permittedNumberOfCallsInHalfOpenState = builder.permittedNumberOfCallsInHalfOpenState;
+        this.successRateThresholdInHalfOpenState = builder.successRateThresholdInHalfOpenState;
+        this.callTimeout = builder.callTimeout;
+        this.slowCallDurationThreshold = builder.slowCallDurationThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.bulkheadType = builder.bulkheadType;
+        this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        this.bulkheadQueueCapacity = builder.bulkheadQueueCapacity;
+        this.initialConcurrencyLimit = builder.initialConcurrencyLimit;
+        this.requestCoalescing = builder.requestCoalescing;
+        this.recordExceptions = List.copyOf(builder.recordExceptions);
+        this.ignoreExceptions = List.copyOf(builder.ignoreExceptions);
+        this.recordResultPredicate = builder.recordResultPredicate;
+        this.metricsFactory = builder.metricsFactory;
+        this.eventPublisher = builder.eventPublisher;
+        this.ticker = builder.ticker;
+    }
+
+    public static CircuitBreakerConfig ofDefaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static Builder from(CircuitBreakerConfig config) {
+        Builder builder = new Builder();
+        builder.failureThreshold = config.failureThreshold;
+        builder.retryTimeout = config.retryTimeout;
+        builder.retryTimeoutStrategy = config.customRetryTimeoutStrategy ? config.retryTimeoutStrategy : null;
+        builder.slidingWindowType = config.slidingWindowType;
+        builder.slidingWindowSize = config.slidingWindowSize;
+        builder.minimumNumberOfCalls = config.minimumNumberOfCalls;
+        builder.failureRateThreshold = config.failureRateThreshold;
+        builder.permittedNumberOfCallsInHalfOpenState = config.permittedNumberOfCallsInHalfOpenState;
+        builder.successRateThresholdInHalfOpenState = config.successRateThresholdInHalfOpenState;
+        builder.callTimeout = config.callTimeout;
+        builder.slowCallDurationThreshold = config.slowCallDurationThreshold;
+        builder.slowCallRateThreshold = config.slowCallRateThreshold;
+        builder.bulkheadType = config.bulkheadType;
+        builder.maxConcurrentCalls = config.maxConcurrentCalls;
+        builder.bulkheadQueueCapacity = config.bulkheadQueueCapacity;
+        builder.initialConcurrencyLimit = config.initialConcurrencyLimit;
+        builder.requestCoalescing = config.requestCoalescing;
+        builder.recordExceptions = new ArrayList<>(config.recordExceptions);
+        builder.ignoreExceptions = new ArrayList<>(config.ignoreExceptions);
+        builder.recordResultPredicate = config.recordResultPredicate;
+        builder.metricsFactory = config.metricsFactory;
+        builder.eventPublisher = config.eventPublisher;
+        builder.ticker = config.ticker;
+        return builder;
+    }
+
+    boolean isReconfigurableTo(CircuitBreakerConfig other) {
+        return slidingWindowType == other.slidingWindowType
+                && slidingWindowSize == other.slidingWindowSize
+                && bulkheadType == other.bulkheadType
+                && maxConcurrentCalls == other.maxConcurrentCalls
+                && bulkheadQueueCapacity == other.bulkheadQueueCapacity
+                && initialConcurrencyLimit == other.initialConcurrencyLimit
+                && requestCoalescing == other.requestCoalescing
+                && recordExceptions.equals(other.recordExceptions)
+                && ignoreExceptions.equals(other.ignoreExceptions)
+                && recordResultPredicate == other.recordResultPredicate
+                && metricsFactory == other.metricsFactory
+                && eventPublisher == other.eventPublisher
+                && ticker == other.ticker;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getRetryTimeout() {
+        return retryTimeout;
+    }
+
+    public RetryTimeoutStrategy getRetryTimeoutStrategy() {
+        return retryTimeoutStrategy;
+    }
+
+    public SlidingWindowType getSlidingWindowType() {
+        return slidingWindowType;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getPermittedNumberOfCallsInHalfOpenState() {
+        return permittedNumberOfCallsInHalfOpenState;
+    }
+
+    public float getSuccessRateThresholdInHalfOpenState() {
+        return successRateThresholdInHalfOpenState;
+    }
+
+    public long getCallTimeout() {
+        return callTimeout;
+    }
+
+    public long getSlowCallDurationThreshold() {
+        return slowCallDurationThreshold;
+    }
+
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public BulkheadType getBulkheadType() {
+        return bulkheadType;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getBulkheadQueueCapacity() {
+        return bulkheadQueueCapacity;
+    }
+
+    public int getInitialConcurrencyLimit() {
+        return initialConcurrencyLimit;
+    }
+
+    public boolean isRequestCoalescing() {
+        return requestCoalescing;
+    }
+
+    public List<Class<? extends Throwable>> getRecordExceptions() {
+        return recordExceptions;
+    }
+
+    public List<Class<? extends Throwable>> getIgnoreExceptions() {
+        return ignoreExceptions;
+    }
+
+    public Predicate<Object> getRecordResultPredicate() {
+        return recordResultPredicate;
+    }
+
+    public Supplier<? extends CircuitBreakerMetrics> getMetricsFactory() {
+        return metricsFactory;
+    }
+
+    public CircuitBreakerEventPublisher getEventPublisher() {
+        return eventPublisher;
+    }
+
+    public Ticker getTicker() {
+        return ticker;
+    }
+
+    public enum SlidingWindowType {NONE, COUNT_BASED, TIME_BASED}
+
+    public enum BulkheadType {NONE, SEMAPHORE, THREAD_POOL, ADAPTIVE, VIRTUAL_THREAD}
+
+    public static final class Builder {
+        private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+        private long retryTimeout = DEFAULT_RETRY_TIMEOUT;
+        private RetryTimeoutStrategy retryTimeoutStrategy;
+        private SlidingWindowType slidingWindowType = SlidingWindowType.NONE;
+        private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+        private int minimumNumberOfCalls = DEFAULT_SLIDING_WINDOW_SIZE;
+        private float failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+        private int permittedNumberOfCallsInHalfOpenState = DEFAULT_PERMITTED_NUMBER_OF_CALLS_IN_HALF_OPEN_STATE;
+        private float successRateThresholdInHalfOpenState = DEFAULT_SUCCESS_RATE_THRESHOLD_IN_HALF_OPEN_STATE;
+        private long callTimeout = DEFAULT_CALL_TIMEOUT;
+        private long slowCallDurationThreshold = DEFAULT_SLOW_CALL_DURATION_THRESHOLD;
+        private float slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+        private BulkheadType bulkheadType = BulkheadType.NONE;
+        private int maxConcurrentCalls = DEFAULT_MAX_CONCURRENT_CALLS;
+        private int bulkheadQueueCapacity = DEFAULT_BULKHEAD_QUEUE_CAPACITY;
+        private int initialConcurrencyLimit = DEFAULT_INITIAL_CONCURRENCY_LIMIT;
+        private boolean requestCoalescing;
+        private List<Class<? extends Throwable>> recordExceptions = Collections.emptyList();
+        private List<Class<? extends Throwable>> ignoreExceptions = Collections.emptyList();
+        private Predicate<Object> recordResultPredicate;
+        private Supplier<? extends CircuitBreakerMetrics> metricsFactory = () -> CircuitBreakerMetrics.NOOP;
+        private CircuitBreakerEventPublisher eventPublisher;
+        private Ticker ticker = Ticker.system();
+
+        private Builder() {
+        }
+
+        public Builder failureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        public Builder retryTimeout(long retryTimeout) {
+            this.retryTimeout = retryTimeout;
+            return this;
+        }
+
+        public Builder retryTimeoutStrategy(RetryTimeoutStrategy retryTimeoutStrategy) {
+            this.retryTimeoutStrategy = retryTimeoutStrategy;
+            return this;
+        }
+
+        public Builder countBasedSlidingWindow(int numberOfCalls) {
+            this.slidingWindowType = SlidingWindowType.COUNT_BASED;
+            this.slidingWindowSize = numberOfCalls;
+            return this;
+        }
+
+        public Builder timeBasedSlidingWindow(int numberOfSeconds) {
+            this.slidingWindowType = SlidingWindowType.TIME_BASED;
+            this.slidingWindowSize = numberOfSeconds;
+            return this;
+        }
+
+        public Builder minimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+            return this;
+        }
+
+        public Builder failureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public Builder permittedNumberOfCallsInHalfOpenState(int permittedNumberOfCallsInHalfOpenState) {
+            this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+            return this;
+        }
+
+        public Builder successRateThresholdInHalfOpenState(float successRateThresholdInHalfOpenState) {
+            this.successRateThresholdInHalfOpenState = successRateThresholdInHalfOpenState;
+            return this;
+        }
+
+        public Builder callTimeout(long callTimeout) {
+            this.callTimeout = callTimeout;
+            return this;
+        }
+
+        public Builder slowCallDurationThreshold(long slowCallDurationThreshold) {
+            this.slowCallDurationThreshold = slowCallDurationThreshold;
+            return this;
+        }
+
+        public Builder slowCallRateThreshold(float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        public Builder semaphoreBulkhead(int maxConcurrentCalls) {
+            this.bulkheadType = BulkheadType.SEMAPHORE;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        public Builder threadPoolBulkhead(int maxConcurrentCalls, int queueCapacity) {
+            this.bulkheadType = BulkheadType.THREAD_POOL;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.bulkheadQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder virtualThreadBulkhead(int maxConcurrentCalls) {
+            this.bulkheadType = BulkheadType.VIRTUAL_THREAD;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        public Builder adaptiveBulkhead(int initialConcurrencyLimit, int maxConcurrentCalls) {
+            this.bulkheadType = BulkheadType.ADAPTIVE;
+            this.initialConcurrencyLimit = initialConcurrencyLimit;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        public Builder requestCoalescing(boolean requestCoalescing) {
+            this.requestCoalescing = requestCoalescing;
+            return this;
+        }
+
+        @SafeVarargs
+        public final Builder recordExceptions(Class<? extends Throwable>... recordExceptions) {
+            this.recordExceptions = Arrays.asList(recordExceptions);
+            return this;
+        }
+
+        @SafeVarargs
+        public final Builder ignoreExceptions(Class<? extends Throwable>... ignoreExceptions) {
+            this.ignoreExceptions = Arrays.asList(ignoreExceptions);
+            return this;
+        }
+
+        public Builder recordResult(Predicate<Object> recordResultPredicate) {
+            this.recordResultPredicate = recordResultPredicate;
+            return this;
+        }
+
+        public Builder metricsFactory(Supplier<? extends CircuitBreakerMetrics> metricsFactory) {
+            this.metricsFactory = metricsFactory;
+            return this;
+        }
+
+        public Builder eventPublisher(CircuitBreakerEventPublisher eventPublisher) {
+            this.eventPublisher = eventPublisher;
+            return this;
+        }
+
+        public Builder ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CircuitBreakerConfig build() {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("failureThreshold must be greater than 0");
+            }
+            if (retryTimeout < 0L) {
+                throw new IllegalArgumentException("retryTimeout cannot be negative");
+            }
+            if (slidingWindowSize < 1) {
+                throw new IllegalArgumentException("slidingWindowSize must be greater than 0");
+            }
+            if (minimumNumberOfCalls < 1) {
+                throw new IllegalArgumentException("minimumNumberOfCalls must be greater than 0");
+            }
+            if (failureRateThreshold <= 0.0f || failureRateThreshold > 100.0f) {
+                throw new IllegalArgumentException("failureRateThreshold must be in the range (0, 100]");
+            }
+            if (permittedNumberOfCallsInHalfOpenState < 1 || permittedNumberOfCallsInHalfOpenState
+                    > CircuitStateMachine.MAX_PERMITTED_CALLS_IN_HALF_OPEN_STATE) {
+                throw new IllegalArgumentException("permittedNumberOfCallsInHalfOpenState must be in the range [1, "
+                        + CircuitStateMachine.MAX_PERMITTED_CALLS_IN_HALF_OPEN_STATE + "]");
+            }
+            if (successRateThresholdInHalfOpenState <= 0.0f || successRateThresholdInHalfOpenState > 100.0f) {
+                throw new IllegalArgumentException("successRateThresholdInHalfOpenState must be in the range (0, 100]");
+            }
+            if (callTimeout < 0L) {
+                throw new IllegalArgumentException("callTimeout cannot be negative");
+            }
+            if (slowCallDurationThreshold < 1L) {
+                throw new IllegalArgumentException("slowCallDurationThreshold must be greater than 0");
+            }
+            if (slowCallRateThreshold <= 0.0f || slowCallRateThreshold > 100.0f) {
+                throw new IllegalArgumentException("slowCallRateThreshold must be in the range (0, 100]");
+            }
+            if (maxConcurrentCalls < 1) {
+                throw new IllegalArgumentException("maxConcurrentCalls must be greater than 0");
+            }
+            if (bulkheadQueueCapacity < 1) {
+                throw new IllegalArgumentException("bulkheadQueueCapacity must be greater than 0");
+            }
+            if (bulkheadType == BulkheadType.ADAPTIVE
+                    && (initialConcurrencyLimit < 1 || initialConcurrencyLimit > maxConcurrentCalls)) {
+                throw new IllegalArgumentException("initialConcurrencyLimit must be in the range [1, maxConcurrentCalls]");
+            }
+            if (ticker == null) {
+                throw new IllegalArgumentException("ticker cannot be null");
+            }
+            if (metricsFactory == null) {
+                throw new IllegalArgumentException("metricsFactory cannot be null");
+            }
+            if (recordExceptions.contains(null) || ignoreExceptions.contains(null)) {
+                throw new IllegalArgumentException("recordExceptions and ignoreExceptions cannot contain null");
+            }
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
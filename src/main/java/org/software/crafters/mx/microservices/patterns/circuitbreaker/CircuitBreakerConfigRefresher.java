@@ -0,0 +1,95 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitBreakerProperties.InstanceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Applies CircuitBreakerProperties to the registry breakers whose key matches an instance name, without
+ * recreating them. Every new config is built before any is applied, so an invalid value leaves all breakers
+ * as they were; each breaker then swaps its config snapshot while its state and sliding window carry on.
+ * Properties are applied over the template a breaker was created from, so removing one restores it; a
+ * breaker whose factory ignored its template is left alone. The refresher is the config resolver of its
+ * registry and reads the bound properties without locking, so creating breakers never waits for a refresh.
+ * A refresh publishes its properties before it reconfigures the registry, and a breaker is checked against
+ * the latest properties once inserted, so one created while a refresh runs ends up with its properties too.
+ */
+public class CircuitBreakerConfigRefresher {
+
+    private final CircuitBreakerRegistry registry;
+    private final Environment environment;
+    private final ReentrantLock refreshLock;
+    private volatile CircuitBreakerProperties properties;
+
+    public CircuitBreakerConfigRefresher(CircuitBreakerRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.environment = environment;
+        this.refreshLock = new ReentrantLock();
+        this.properties = new CircuitBreakerProperties();
+        registry.setConfigResolver(new Resolver());
+    }
+
+    public void refresh() {
+        refresh(Binder.get(environment).bind(CircuitBreakerProperties.PREFIX, CircuitBreakerProperties.class)
+                .orElseGet(CircuitBreakerProperties::new));
+    }
+
+    public void refresh(CircuitBreakerProperties properties) {
+        refreshLock.lock();
+        try {
+            Map<AbstractCircuitBreaker, CircuitBreakerConfig> configs = new LinkedHashMap<>();
+            registry.forEachEntry((key, template, circuitBreaker) -> {
+                if (circuitBreaker.getConfig().isReconfigurableTo(template)) {
+                    configs.put(circuitBreaker, configOf(properties, key, template));
+                }
+            });
+            this.properties = properties;
+            configs.forEach(AbstractCircuitBreaker::reconfigure);
+            // breakers inserted since the first pass may have been checked against the previous properties
+            registry.forEachEntry((key, template, circuitBreaker) -> {
+                if (!configs.containsKey(circuitBreaker)) {
+                    apply(key, template, circuitBreaker);
+                }
+            });
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void apply(String key, CircuitBreakerConfig template, AbstractCircuitBreaker circuitBreaker) {
+        if (!circuitBreaker.getConfig().isReconfigurableTo(template)) {
+            return;
+        }
+        CircuitBreakerProperties applied;
+        do {
+            applied = properties;
+            CircuitBreakerConfig config = configOf(applied, key, template);
+            if (config != circuitBreaker.getConfig()) {
+                circuitBreaker.reconfigure(config);
+            }
+        } while (applied != properties);
+    }
+
+    private static CircuitBreakerConfig configOf(CircuitBreakerProperties properties, String key,
+                                                 CircuitBreakerConfig template) {
+        InstanceProperties instance = properties.getInstances().get(key);
+        return instance == null ? template : instance.applyTo(template);
+    }
+
+    private final class Resolver implements CircuitBreakerRegistry.ConfigResolver {
+
+        @Override
+        public CircuitBreakerConfig resolve(String key, CircuitBreakerConfig template) {
+            return configOf(properties, key, template);
+        }
+
+        @Override
+        public void onCreated(String key, CircuitBreakerConfig template, AbstractCircuitBreaker circuitBreaker) {
+            apply(key, template, circuitBreaker);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+public final class CircuitBreakerEvent {
+
+    private final AbstractCircuitBreaker circuitBreaker;
+    private final Type type;
+    private final long timestamp;
+    private final long durationNanos;
+    private final State fromState;
+    private final State toState;
+
+    CircuitBreakerEvent(AbstractCircuitBreaker circuitBreaker, Type type, long timestamp, long durationNanos,
+                        State fromState, State toState) {
+        this.circuitBreaker = circuitBreaker;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+        this.fromState = fromState;
+        this.toState = toState;
+    }
+
+    public AbstractCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public State getFromState() {
+        return fromState;
+    }
+
+    public State getToState() {
+        return toState;
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.STATE_TRANSITION
+                ? type + " " + fromState + " -> " + toState + " at " + timestamp
+                : type + " at " + timestamp;
+    }
+
+    public enum Type {SUCCESS, FAILURE, SHORT_CIRCUIT, REJECTED, FALLBACK_FAILURE, STATE_TRANSITION}
+}
@@ -0,0 +1,7 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+@FunctionalInterface
+public interface CircuitBreakerEventListener {
+
+    void onEvent(CircuitBreakerEvent event);
+}
@@ -0,0 +1,146 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitBreakerEvent.Type;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Disruptor-style bounded ring of preallocated slots shared by any number of breakers. A publisher claims
+ * a sequence with one CAS, fills the slot and marks it available; a single consumer thread turns slots
+ * into events and hands them to the listeners. When the consumer falls a whole ring behind, publishers
+ * drop the event and count it instead of waiting, so a slow listener never adds latency to a call.
+ * A publisher stores the ticker reading of the call, usually one it already took to time the call, and
+ * the consumer converts it to epoch millis, so no wall clock is read on the calling thread and an event
+ * keeps the time it happened however far behind the consumer is.
+ */
+public final class CircuitBreakerEventPublisher implements AutoCloseable {
+
+    private static final AtomicInteger PUBLISHER_NUMBER = new AtomicInteger();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final int mask;
+    private final Slot[] slots;
+    private final AtomicLongArray available;
+    private final AtomicLong claimed;
+    private final AtomicLong consumed;
+    private final LongAdder droppedCount;
+    private final List<CircuitBreakerEventListener> listeners;
+    private final Thread consumer;
+    private volatile boolean sleeping;
+    private volatile boolean running;
+
+    public CircuitBreakerEventPublisher(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in the range [1, 2^30]");
+        }
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        this.mask = size - 1;
+        this.slots = new Slot[size];
+        this.available = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            available.set(i, -1L);
+        }
+        this.claimed = new AtomicLong();
+        this.consumed = new AtomicLong();
+        this.droppedCount = new LongAdder();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.running = true;
+        this.consumer = new Thread(this::consume, "circuit-breaker-events-" + PUBLISHER_NUMBER.incrementAndGet());
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void addListener(CircuitBreakerEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CircuitBreakerEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+    }
+
+    void publish(AbstractCircuitBreaker circuitBreaker, Type type, long time, long durationNanos, State from,
+                 State to) {
+        if (listeners.isEmpty() || !running) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length) {
+                droppedCount.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        int index = (int) sequence & mask;
+        Slot slot = slots[index];
+        slot.circuitBreaker = circuitBreaker;
+        slot.type = type;
+        slot.time = time;
+        slot.durationNanos = durationNanos;
+        slot.fromState = from;
+        slot.toState = to;
+        available.set(index, sequence);
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void consume() {
+        long sequence = 0L;
+        while (running) {
+            int index = (int) sequence & mask;
+            if (available.get(index) != sequence) {
+                sleeping = true;
+                if (available.get(index) != sequence && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+                continue;
+            }
+            Slot slot = slots[index];
+            CircuitBreakerEvent event = new CircuitBreakerEvent(slot.circuitBreaker, slot.type,
+                    slot.circuitBreaker.toEpochMillis(slot.time), slot.durationNanos, slot.fromState, slot.toState);
+            slot.circuitBreaker = null;
+            consumed.set(++sequence);
+            for (CircuitBreakerEventListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    // a failing listener must neither stop the stream nor starve the others
+                }
+            }
+        }
+    }
+
+    private static final class Slot {
+        private AbstractCircuitBreaker circuitBreaker;
+        private Type type;
+        private long time;
+        private long durationNanos;
+        private State fromState;
+        private State toState;
+    }
+}
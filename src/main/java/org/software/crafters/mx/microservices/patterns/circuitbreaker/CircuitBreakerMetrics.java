@@ -0,0 +1,27 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+public interface CircuitBreakerMetrics {
+
+    CircuitBreakerMetrics NOOP = new CircuitBreakerMetrics() {
+    };
+
+    default void onSuccess(long durationNanos) {
+    }
+
+    default void onFailure(long durationNanos) {
+    }
+
+    default void onShortCircuit() {
+    }
+
+    default void onRejected() {
+    }
+
+    default void onFallbackFailure() {
+    }
+
+    default void onStateTransition(State from, State to) {
+    }
+}
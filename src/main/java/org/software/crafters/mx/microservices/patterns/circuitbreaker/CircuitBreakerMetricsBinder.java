@@ -0,0 +1,74 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+public class CircuitBreakerMetricsBinder implements MeterBinder {
+
+    private static final double[] PERCENTILES = {50.0d, 90.0d, 99.0d, 99.9d};
+
+    private final String name;
+    private final AbstractCircuitBreaker circuitBreaker;
+    private final DefaultCircuitBreakerMetrics metrics;
+
+    public CircuitBreakerMetricsBinder(String name, AbstractCircuitBreaker circuitBreaker) {
+        if (!(circuitBreaker.getMetrics() instanceof DefaultCircuitBreakerMetrics)) {
+            throw new IllegalArgumentException("circuit breaker " + name + " does not record DefaultCircuitBreakerMetrics");
+        }
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.metrics = (DefaultCircuitBreakerMetrics) circuitBreaker.getMetrics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCalls(registry, "successful", DefaultCircuitBreakerMetrics::getSuccessfulCalls);
+        bindCalls(registry, "failed", DefaultCircuitBreakerMetrics::getFailedCalls);
+        bindCalls(registry, "short_circuited", DefaultCircuitBreakerMetrics::getShortCircuitedCalls);
+        bindCalls(registry, "rejected", DefaultCircuitBreakerMetrics::getRejectedCalls);
+        bindCalls(registry, "fallback_failed", DefaultCircuitBreakerMetrics::getFallbackFailures);
+        for (State state : State.values()) {
+            Gauge.builder("circuitbreaker.state", circuitBreaker, cb -> cb.getState() == state ? 1.0d : 0.0d)
+                    .tag("name", name)
+                    .tag("state", tagOf(state))
+                    .register(registry);
+            for (State to : State.values()) {
+                if (state != to) {
+                    FunctionCounter.builder("circuitbreaker.state.transitions", metrics,
+                            m -> m.getStateTransitions(state, to))
+                            .tag("name", name)
+                            .tag("from", tagOf(state))
+                            .tag("to", tagOf(to))
+                            .register(registry);
+                }
+            }
+        }
+        LatencyHistogram latencyHistogram = metrics.getLatencyHistogram();
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder("circuitbreaker.calls.latency", latencyHistogram, TimeUnit.NANOSECONDS,
+                    histogram -> histogram.getValueAtPercentile(percentile))
+                    .tag("name", name)
+                    .tag("percentile", String.valueOf(percentile / 100.0d))
+                    .register(registry);
+        }
+    }
+
+    private void bindCalls(MeterRegistry registry, String kind, ToDoubleFunction<DefaultCircuitBreakerMetrics> count) {
+        FunctionCounter.builder("circuitbreaker.calls", metrics, count)
+                .tag("name", name)
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    private static String tagOf(State state) {
+        return state.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,143 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Thresholds and timeouts of named breakers, bound from circuitbreaker.instances.<name>.*:
+ *
+ *   circuitbreaker.instances.payments.failure-threshold=5
+ *   circuitbreaker.instances.payments.retry-timeout=10000
+ *
+ * Only what a live breaker can take through reconfigure is exposed; a property left unset keeps the value
+ * of the config it is applied to.
+ */
+@ConfigurationProperties(prefix = CircuitBreakerProperties.PREFIX)
+public class CircuitBreakerProperties {
+
+    public static final String PREFIX = "circuitbreaker";
+
+    private final Map<String, InstanceProperties> instances = new LinkedHashMap<>();
+
+    public Map<String, InstanceProperties> getInstances() {
+        return instances;
+    }
+
+    public static class InstanceProperties {
+        private Integer failureThreshold;
+        private Long retryTimeout;
+        private Integer minimumNumberOfCalls;
+        private Float failureRateThreshold;
+        private Integer permittedNumberOfCallsInHalfOpenState;
+        private Float successRateThresholdInHalfOpenState;
+        private Long callTimeout;
+        private Long slowCallDurationThreshold;
+        private Float slowCallRateThreshold;
+
+        public CircuitBreakerConfig applyTo(CircuitBreakerConfig config) {
+            CircuitBreakerConfig.Builder builder = CircuitBreakerConfig.from(config);
+            if (failureThreshold != null) {
+                builder.failureThreshold(failureThreshold);
+            }
+            if (retryTimeout != null) {
+                builder.retryTimeout(retryTimeout);
+            }
+            if (minimumNumberOfCalls != null) {
+                builder.minimumNumberOfCalls(minimumNumberOfCalls);
+            }
+            if (failureRateThreshold != null) {
+                builder.failureRateThreshold(failureRateThreshold);
+            }
+            if (permittedNumberOfCallsInHalfOpenState != null) {
+                builder.permittedNumberOfCallsInHalfOpenState(permittedNumberOfCallsInHalfOpenState);
+            }
+            if (successRateThresholdInHalfOpenState != null) {
+                builder.successRateThresholdInHalfOpenState(successRateThresholdInHalfOpenState);
+            }
+            if (callTimeout != null) {
+                builder.callTimeout(callTimeout);
+            }
+            if (slowCallDurationThreshold != null) {
+                builder.slowCallDurationThreshold(slowCallDurationThreshold);
+            }
+            if (slowCallRateThreshold != null) {
+                builder.slowCallRateThreshold(slowCallRateThreshold);
+            }
+            return builder.build();
+        }
+
+        public Integer getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(Integer failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Long getRetryTimeout() {
+            return retryTimeout;
+        }
+
+        public void setRetryTimeout(Long retryTimeout) {
+            this.retryTimeout = retryTimeout;
+        }
+
+        public Integer getMinimumNumberOfCalls() {
+            return minimumNumberOfCalls;
+        }
+
+        public void setMinimumNumberOfCalls(Integer minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+        }
+
+        public Float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(Float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Integer getPermittedNumberOfCallsInHalfOpenState() {
+            return permittedNumberOfCallsInHalfOpenState;
+        }
+
+        public void setPermittedNumberOfCallsInHalfOpenState(Integer permittedNumberOfCallsInHalfOpenState) {
+            this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+        }
+
+        public Float getSuccessRateThresholdInHalfOpenState() {
+            return successRateThresholdInHalfOpenState;
+        }
+
+        public void setSuccessRateThresholdInHalfOpenState(Float successRateThresholdInHalfOpenState) {
+            this.successRateThresholdInHalfOpenState = successRateThresholdInHalfOpenState;
+        }
+
+        public Long getCallTimeout() {
+            return callTimeout;
+        }
+
+        public void setCallTimeout(Long callTimeout) {
+            this.callTimeout = callTimeout;
+        }
+
+        public Long getSlowCallDurationThreshold() {
+            return slowCallDurationThreshold;
+        }
+
+        public void setSlowCallDurationThreshold(Long slowCallDurationThreshold) {
+            this.slowCallDurationThreshold = slowCallDurationThreshold;
+        }
+
+        public Float getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(Float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/*
+ * Breakers keyed by endpoint or tenant, created on first use from named config templates. The call that
+ * creates the breaker of a key decides its functions and config; later lookups of the key get that breaker
+ * whatever functions or config name they pass, and are rejected if they expect another type of breaker,
+ * e.g. an async one for a key created through the synchronous overload. Lookups of
+ * existing keys only read the map; creation locks a single bin of it. Breakers that are CLOSED and were
+ * not looked up for idleTimeout, or the least recently looked up CLOSED ones once the registry grows past
+ * maximumSize, are evicted by a sweep that runs on creation and never blocks lookups. A registry whose key
+ * set stopped growing creates nothing, so it only evicts idle breakers when cleanUp() is called, e.g. from
+ * a scheduled task. A breaker that is OPEN or HALF_OPEN is never evicted, so no key forgets that its
+ * dependency is down, and the sweep reads states without moving an expired OPEN breaker to HALF_OPEN.
+ * When too few breakers are CLOSED to get back under maximumSize, the next sweep for size waits until the
+ * registry grows by another tenth, so that a full scan is amortized over as many creations. The config a
+ * breaker is created with is the named template passed through the config resolver, if one is set, so that
+ * per-key overrides such as CircuitBreakerProperties apply from the first call. The resolver runs before the
+ * breaker is inserted and is told once it is, so that overrides changed in between still reach it.
+ */
+public final class CircuitBreakerRegistry {
+
+    public static final String DEFAULT_CONFIG = "default";
+
+    private static final float EVICTION_WATERMARK = 0.9f;
+
+    private final Map<String, CircuitBreakerConfig> configs;
+    private final int maximumSize;
+    private final long idleTimeout;
+    private final Ticker ticker;
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final AtomicBoolean sweeping;
+    private volatile long lastSweep;
+    private volatile int sweepSize;
+    private volatile ConfigResolver configResolver;
+
+    private CircuitBreakerRegistry(Builder builder) {
+        this.configs = Collections.unmodifiableMap(new HashMap<>(builder.configs));
+        this.maximumSize = builder.maximumSize;
+        this.idleTimeout = builder.idleTimeout;
+        this.ticker = builder.ticker;
+        this.entries = new ConcurrentHashMap<>();
+        this.sweeping = new AtomicBoolean();
+        this.lastSweep = now();
+        this.sweepSize = maximumSize;
+        this.configResolver = (key, template) -> template;
+    }
+
+    public static CircuitBreakerRegistry ofDefaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public <T, R> SimpleCircuitBreaker<T, R> circuitBreaker(String key, Function<T, R> remoteCall,
+                                                            Function<T, R> fallbackMethod) {
+        return circuitBreaker(key, DEFAULT_CONFIG, remoteCall, fallbackMethod);
+    }
+
+    public <T, R> SimpleCircuitBreaker<T, R> circuitBreaker(String key, String configName, Function<T, R> remoteCall,
+                                                            Function<T, R> fallbackMethod) {
+        return circuitBreaker(key, configName, SimpleCircuitBreaker.class,
+                config -> new SimpleCircuitBreaker<>(remoteCall, config, fallbackMethod));
+    }
+
+    public <T, R> AsyncCircuitBreaker<T, R> asyncCircuitBreaker(String key, String configName,
+                                                                Function<T, CompletionStage<R>> remoteCall,
+                                                                Function<T, CompletionStage<R>> fallbackMethod) {
+        return circuitBreaker(key, configName, AsyncCircuitBreaker.class,
+                config -> new AsyncCircuitBreaker<>(remoteCall, config, fallbackMethod));
+    }
+
+    public <B extends AbstractCircuitBreaker> B circuitBreaker(String key, String configName,
+                                                               Function<CircuitBreakerConfig, B> factory) {
+        return circuitBreaker(key, configName, AbstractCircuitBreaker.class, factory);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <B extends AbstractCircuitBreaker> B circuitBreaker(String key, String configName, Class<? super B> type,
+                                                               Function<CircuitBreakerConfig, B> factory) {
+        long now = now();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            ConfigResolver resolver = configResolver;
+            CircuitBreakerConfig template = getConfig(configName);
+            CircuitBreakerConfig config = resolver.resolve(key, template);
+            entry = entries.computeIfAbsent(key, k -> new Entry(factory.apply(config), template, now));
+            resolver.onCreated(key, entry.template, entry.circuitBreaker);
+            sweepIfNeeded(key, now);
+        } else if (entry.lastAccess != now) {
+            entry.lastAccess = now;
+        }
+        if (!type.isInstance(entry.circuitBreaker)) {
+            throw new IllegalArgumentException("Circuit breaker " + key + " is a "
+                    + entry.circuitBreaker.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return (B) entry.circuitBreaker;
+    }
+
+    public CircuitBreakerConfig getConfig(String configName) {
+        CircuitBreakerConfig config = configs.get(configName);
+        if (config == null) {
+            throw new IllegalArgumentException("Unknown circuit breaker config " + configName);
+        }
+        return config;
+    }
+
+    public void setConfigResolver(ConfigResolver configResolver) {
+        if (configResolver == null) {
+            throw new IllegalArgumentException("configResolver cannot be null");
+        }
+        this.configResolver = configResolver;
+    }
+
+    public AbstractCircuitBreaker find(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.circuitBreaker;
+    }
+
+    public boolean remove(String key) {
+        return entries.remove(key) != null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void forEach(BiConsumer<String, AbstractCircuitBreaker> action) {
+        entries.forEach((key, entry) -> action.accept(key, entry.circuitBreaker));
+    }
+
+    void forEachEntry(EntryConsumer action) {
+        entries.forEach((key, entry) -> action.accept(key, entry.template, entry.circuitBreaker));
+    }
+
+    public Map<String, State> getStates() {
+        Map<String, State> states = new LinkedHashMap<>();
+        entries.forEach((key, entry) -> states.put(key, entry.circuitBreaker.getState()));
+        return states;
+    }
+
+    public void cleanUp() {
+        if (sweeping.compareAndSet(false, true)) {
+            try {
+                sweep(null, now());
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(ticker.read());
+    }
+
+    private void sweepIfNeeded(String createdKey, long now) {
+        if ((entries.size() > sweepSize || now - lastSweep >= idleTimeout) && sweeping.compareAndSet(false, true)) {
+            try {
+                sweep(createdKey, now);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private void sweep(String createdKey, long now) {
+        lastSweep = now;
+        List<Map.Entry<String, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            if (candidate.getKey().equals(createdKey) || !isClosed(entry)) {
+                continue;
+            }
+            if (now - entry.lastAccess >= idleTimeout) {
+                evict(candidate.getKey(), entry);
+            } else {
+                candidates.add(candidate);
+            }
+        }
+        if (entries.size() > maximumSize) {
+            int excess = entries.size() - (int) (maximumSize * EVICTION_WATERMARK);
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess));
+            for (int i = 0; i < candidates.size() && excess > 0; i++) {
+                Map.Entry<String, Entry> candidate = candidates.get(i);
+                if (evict(candidate.getKey(), candidate.getValue())) {
+                    excess--;
+                }
+            }
+        }
+        sweepSize = Math.max(maximumSize, (int) Math.min(Integer.MAX_VALUE, entries.size() * 11L / 10L));
+    }
+
+    private boolean evict(String key, Entry entry) {
+        return isClosed(entry) && entries.remove(key, entry);
+    }
+
+    private static boolean isClosed(Entry entry) {
+        return entry.circuitBreaker.stateMachine.peekState() == State.CLOSED;
+    }
+
+    /*
+     * Derives the config of a new breaker from its template. onCreated runs after the breaker is inserted,
+     * possibly more than once for a key when several callers race to create it.
+     */
+    @FunctionalInterface
+    public interface ConfigResolver {
+
+        CircuitBreakerConfig resolve(String key, CircuitBreakerConfig template);
+
+        default void onCreated(String key, CircuitBreakerConfig template, AbstractCircuitBreaker circuitBreaker) {
+        }
+    }
+
+    interface EntryConsumer {
+        void accept(String key, CircuitBreakerConfig template, AbstractCircuitBreaker circuitBreaker);
+    }
+
+    private static final class Entry {
+        private final AbstractCircuitBreaker circuitBreaker;
+        private final CircuitBreakerConfig template;
+        private volatile long lastAccess;
+
+        private Entry(AbstractCircuitBreaker circuitBreaker, CircuitBreakerConfig template, long lastAccess) {
+            this.circuitBreaker = circuitBreaker;
+            this.template = template;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    public static final class Builder {
+        private final Map<String, CircuitBreakerConfig> configs = new HashMap<>();
+        private int maximumSize = Integer.MAX_VALUE;
+        private long idleTimeout = Long.MAX_VALUE;
+        private Ticker ticker = Ticker.system();
+
+        private Builder() {
+            configs.put(DEFAULT_CONFIG, CircuitBreakerConfig.ofDefaults());
+        }
+
+        public Builder defaultConfig(CircuitBreakerConfig config) {
+            return addConfig(DEFAULT_CONFIG, config);
+        }
+
+        public Builder addConfig(String configName, CircuitBreakerConfig config) {
+            if (configName == null || config == null) {
+                throw new IllegalArgumentException("configName and config cannot be null");
+            }
+            configs.put(configName, config);
+            return this;
+        }
+
+        public Builder maximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder idleTimeout(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public Builder ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CircuitBreakerRegistry build() {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be greater than 0");
+            }
+            if (idleTimeout < 1L) {
+                throw new IllegalArgumentException("idleTimeout must be greater than 0");
+            }
+            if (ticker == null) {
+                throw new IllegalArgumentException("ticker cannot be null");
+            }
+            return new CircuitBreakerRegistry(this);
+        }
+    }
+}
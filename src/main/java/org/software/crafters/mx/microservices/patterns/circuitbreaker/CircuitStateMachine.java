@@ -0,0 +1,429 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * The whole state of the circuit lives in a single long so that every transition is one CAS:
+ *
+ *   | 63..62 state | 61..40 failure count | 39..0 payload |
+ *
+ * The payload of CLOSED is the time of the last failure, the payload of OPEN the deadline of its retry timeout,
+ * so that checking it costs no clock read besides the one of the call (ms since origin + 1, 0 = none).
+ * The payload of HALF_OPEN holds the probe counters: | 39..26 permits issued | 25..13 successes | 12..0 failures |
+ * Thresholds and timeouts are read from an immutable Settings snapshot, once per operation, and reconfigure
+ * swaps it by reference: the next call sees the new values while the word and the sliding window carry on.
+ */
+final class CircuitStateMachine {
+
+    static final int MAX_PERMITTED_CALLS_IN_HALF_OPEN_STATE = (1 << 13) - 1;
+    static final long MIN_PROBE_TIMEOUT = 1000L;
+
+    private static final int STATE_SHIFT = 62;
+    private static final int FAILURE_COUNT_SHIFT = 40;
+    private static final long FAILURE_COUNT_MAX = (1L << (STATE_SHIFT - FAILURE_COUNT_SHIFT)) - 1;
+    private static final long PAYLOAD_MASK = (1L << FAILURE_COUNT_SHIFT) - 1;
+    private static final int PERMITS_SHIFT = 26;
+    private static final int SUCCESSES_SHIFT = 13;
+    private static final long PROBE_COUNTER_MASK = (1L << SUCCESSES_SHIFT) - 1;
+    private static final State[] STATES = State.values();
+
+    private final SlidingWindow slidingWindow;
+    private final long origin;
+    private final long epochOrigin;
+    private final TransitionListener listener;
+    private final AtomicLong word;
+    private volatile Settings settings;
+    private volatile long lastFailureTimeWhileOpen;
+    private volatile long lastCloseTime;
+    private volatile int retryAttempt;
+    private volatile long retryTimeout;
+
+    CircuitStateMachine(CircuitBreakerConfig config, TransitionListener listener) {
+        this.settings = new Settings(config);
+        this.slidingWindow = SlidingWindow.of(config);
+        this.origin = TimeUnit.NANOSECONDS.toMillis(config.getTicker().read());
+        this.epochOrigin = System.currentTimeMillis();
+        this.listener = listener;
+        this.word = new AtomicLong(pack(State.CLOSED, 0, 0L));
+    }
+
+    CircuitBreakerConfig getConfig() {
+        return settings.config;
+    }
+
+    void reconfigure(CircuitBreakerConfig config) {
+        settings = new Settings(config);
+    }
+
+    Settings settings() {
+        return settings;
+    }
+
+    State currentState(long now) {
+        while (true) {
+            long current = word.get();
+            State state = stateOf(current);
+            if (state != State.OPEN || !isRetryTimeoutElapsed(current, now)) {
+                return state;
+            }
+            if (transitionToHalfOpen(current, 0)) {
+                return State.HALF_OPEN;
+            }
+        }
+    }
+
+    State peekState() {
+        return stateOf(word.get());
+    }
+
+    State tryAcquirePermission(long now) {
+        return tryAcquirePermission(settings, now);
+    }
+
+    State tryAcquirePermission(Settings settings, long now) {
+        while (true) {
+            long current = word.get();
+            switch (stateOf(current)) {
+                case CLOSED:
+                    return State.CLOSED;
+                case OPEN:
+                    if (!isRetryTimeoutElapsed(current, now)) {
+                        return State.OPEN;
+                    }
+                    if (transitionToHalfOpen(current, 1)) {
+                        return State.HALF_OPEN;
+                    }
+                    break;
+                case HALF_OPEN:
+                default:
+                    long permits = payloadOf(current) >>> PERMITS_SHIFT;
+                    if (permits >= settings.permittedCallsInHalfOpenState) {
+                        return State.OPEN;
+                    }
+                    if (word.compareAndSet(current, current + (1L << PERMITS_SHIFT))) {
+                        return State.HALF_OPEN;
+                    }
+                    break;
+            }
+        }
+    }
+
+    void releasePermission() {
+        while (true) {
+            long current = word.get();
+            if (stateOf(current) != State.HALF_OPEN || payloadOf(current) >>> PERMITS_SHIFT == 0L
+                    || word.compareAndSet(current, current - (1L << PERMITS_SHIFT))) {
+                return;
+            }
+        }
+    }
+
+    void onSuccess(long now, long durationNanos) {
+        onSuccess(settings, now, durationNanos);
+    }
+
+    void onSuccess(Settings settings, long now, long durationNanos) {
+        boolean slow = durationNanos >= settings.slowCallDurationThreshold;
+        if (slidingWindow != null && stateOf(word.get()) == State.CLOSED) {
+            slidingWindow.record(false, slow, now);
+            if (slow && isSlowCallRateExceeded(settings, now)) {
+                openIfClosed(settings, now);
+            }
+            return;
+        }
+        while (true) {
+            long current = word.get();
+            if (stateOf(current) != State.HALF_OPEN) {
+                return;
+            }
+            if (slow) {
+                lastFailureTimeWhileOpen = fromMillis(now);
+                if (failProbe(settings, current, failureCountOf(current), now)) {
+                    return;
+                }
+                continue;
+            }
+            long next = succeededProbe(settings, current);
+            if (word.compareAndSet(current, next)) {
+                if (stateOf(next) == State.CLOSED) {
+                    lastCloseTime = fromMillis(now);
+                    retryAttempt = 0;
+                    retryTimeout = 0L;
+                    if (slidingWindow != null) {
+                        slidingWindow.reset();
+                    }
+                }
+                notifyTransition(current, next);
+                return;
+            }
+        }
+    }
+
+    void onFailure(long now, long durationNanos) {
+        onFailure(settings, now, durationNanos);
+    }
+
+    void onFailure(Settings settings, long now, long durationNanos) {
+        long time = fromMillis(now);
+        boolean thresholdExceeded = false;
+        if (slidingWindow != null && stateOf(word.get()) == State.CLOSED) {
+            boolean slow = durationNanos >= settings.slowCallDurationThreshold;
+            slidingWindow.record(true, slow, now);
+            thresholdExceeded = isFailureRateExceeded(settings, now) || (slow && isSlowCallRateExceeded(settings, now));
+        }
+        while (true) {
+            long current = word.get();
+            State state = stateOf(current);
+            long failureCount = Math.min(failureCountOf(current) + 1, FAILURE_COUNT_MAX);
+            if (state == State.HALF_OPEN) {
+                lastFailureTimeWhileOpen = time;
+                if (failProbe(settings, current, failureCount, now)) {
+                    return;
+                }
+            } else if (state == State.CLOSED && (slidingWindow == null
+                    ? failureCount >= settings.failureThreshold : thresholdExceeded)) {
+                lastFailureTimeWhileOpen = time;
+                if (open(settings, current, failureCount, now, 0)) {
+                    return;
+                }
+            } else {
+                if (state == State.OPEN) {
+                    lastFailureTimeWhileOpen = time;
+                }
+                long payload = state == State.OPEN ? payloadOf(current) : time;
+                if (word.compareAndSet(current, pack(state, failureCount, payload))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    void forceOpen(long openedAtEpochMillis) {
+        Settings settings = this.settings;
+        long openedAt = openedAtEpochMillis - epochOrigin + origin;
+        while (true) {
+            long current = word.get();
+            if (stateOf(current) != State.CLOSED) {
+                return;
+            }
+            lastFailureTimeWhileOpen = fromMillis(openedAt);
+            if (open(settings, current, failureCountOf(current), openedAt, 0)) {
+                return;
+            }
+        }
+    }
+
+    void deferProbes(long now) {
+        RetryTimeoutStrategy retryTimeoutStrategy = settings.retryTimeoutStrategy;
+        while (true) {
+            long current = word.get();
+            State state = stateOf(current);
+            if (state == State.CLOSED || isProbing(current)) {
+                return;
+            }
+            long deadline = deadline(now, retryTimeoutStrategy.retryTimeout(retryAttempt, retryTimeout));
+            if (state == State.OPEN && payloadOf(current) >= deadline) {
+                return;
+            }
+            long next = pack(State.OPEN, failureCountOf(current), deadline);
+            if (word.compareAndSet(current, next)) {
+                notifyTransition(current, next);
+                return;
+            }
+        }
+    }
+
+    long probeTimeout(Settings settings) {
+        // without a call timeout, a probe may take as long as the circuit stayed OPEN before it is a failure
+        return settings.callTimeout != 0L ? settings.callTimeout : Math.max(retryTimeout, MIN_PROBE_TIMEOUT);
+    }
+
+    boolean isProbing() {
+        return isProbing(word.get());
+    }
+
+    int getNumberOfCalls(long now) {
+        return slidingWindow == null ? 0 : slidingWindow.getNumberOfCalls(now);
+    }
+
+    int getNumberOfFailedCalls(long now) {
+        return slidingWindow == null ? 0 : slidingWindow.getNumberOfFailedCalls(now);
+    }
+
+    boolean isFailureRateExceeded(long now, int peerCalls, int peerFailedCalls) {
+        if (slidingWindow == null) {
+            return false;
+        }
+        int numberOfCalls = slidingWindow.getNumberOfCalls(now) + peerCalls;
+        int numberOfFailedCalls = slidingWindow.getNumberOfFailedCalls(now) + peerFailedCalls;
+        Settings settings = this.settings;
+        return numberOfCalls >= settings.minimumNumberOfCalls
+                && numberOfFailedCalls * 100.0f / numberOfCalls >= settings.failureRateThreshold;
+    }
+
+    float getSlowCallRate(long now) {
+        return slidingWindow == null ? -1.0f : slidingWindow.getSlowCallRate(now);
+    }
+
+    float getFailureRate(long now) {
+        return slidingWindow == null ? -1.0f : slidingWindow.getFailureRate(now);
+    }
+
+    int getFailureCount() {
+        return (int) failureCountOf(word.get());
+    }
+
+    long getLastFailureTime() {
+        long current = word.get();
+        return toEpochMillis(stateOf(current) == State.CLOSED ? payloadOf(current) : lastFailureTimeWhileOpen);
+    }
+
+    long getLastCloseTime() {
+        return toEpochMillis(lastCloseTime);
+    }
+
+    void openIfClosed(long now) {
+        openIfClosed(settings, now);
+    }
+
+    private void openIfClosed(Settings settings, long now) {
+        while (true) {
+            long current = word.get();
+            if (stateOf(current) != State.CLOSED) {
+                return;
+            }
+            lastFailureTimeWhileOpen = payloadOf(current);
+            if (open(settings, current, failureCountOf(current), now, 0)) {
+                return;
+            }
+        }
+    }
+
+    private long succeededProbe(Settings settings, long halfOpen) {
+        long successes = ((payloadOf(halfOpen) >>> SUCCESSES_SHIFT) & PROBE_COUNTER_MASK) + 1;
+        return successes >= settings.requiredSuccessesInHalfOpenState
+                ? pack(State.CLOSED, 0, 0L)
+                : halfOpen + (1L << SUCCESSES_SHIFT);
+    }
+
+    private boolean failProbe(Settings settings, long halfOpen, long failureCount, long now) {
+        long failures = (payloadOf(halfOpen) & PROBE_COUNTER_MASK) + 1;
+        if (failures > settings.permittedCallsInHalfOpenState - settings.requiredSuccessesInHalfOpenState) {
+            return open(settings, halfOpen, failureCount, now, retryAttempt + 1);
+        }
+        return word.compareAndSet(halfOpen, pack(State.HALF_OPEN, failureCount, payloadOf(halfOpen) + 1));
+    }
+
+    private boolean open(Settings settings, long current, long failureCount, long now, int attempt) {
+        long timeout = Math.max(0L, settings.retryTimeoutStrategy.retryTimeout(attempt, retryTimeout));
+        long next = pack(State.OPEN, failureCount, deadline(now, timeout));
+        if (!word.compareAndSet(current, next)) {
+            return false;
+        }
+        retryAttempt = attempt;
+        retryTimeout = timeout;
+        notifyTransition(current, next);
+        return true;
+    }
+
+    private boolean transitionToHalfOpen(long open, long permits) {
+        long halfOpen = pack(State.HALF_OPEN, failureCountOf(open), permits << PERMITS_SHIFT);
+        if (!word.compareAndSet(open, halfOpen)) {
+            return false;
+        }
+        notifyTransition(open, halfOpen);
+        return true;
+    }
+
+    private void notifyTransition(long from, long to) {
+        State fromState = stateOf(from);
+        State toState = stateOf(to);
+        if (fromState != toState) {
+            listener.onStateTransition(fromState, toState);
+        }
+    }
+
+    private static boolean isProbing(long word) {
+        return stateOf(word) == State.HALF_OPEN && payloadOf(word) != 0L;
+    }
+
+    private boolean isRetryTimeoutElapsed(long open, long now) {
+        return fromMillis(now) >= payloadOf(open);
+    }
+
+    private boolean isFailureRateExceeded(Settings settings, long now) {
+        return slidingWindow.getNumberOfCalls(now) >= settings.minimumNumberOfCalls
+                && slidingWindow.getFailureRate(now) >= settings.failureRateThreshold;
+    }
+
+    private boolean isSlowCallRateExceeded(Settings settings, long now) {
+        return slidingWindow.getNumberOfCalls(now) >= settings.minimumNumberOfCalls
+                && slidingWindow.getSlowCallRate(now) >= settings.slowCallRateThreshold;
+    }
+
+    private long deadline(long now, long timeout) {
+        return fromMillis(now + Math.min(Math.max(0L, timeout), PAYLOAD_MASK));
+    }
+
+    private long fromMillis(long millis) {
+        return Math.min(Math.max(0L, millis - origin) + 1, PAYLOAD_MASK);
+    }
+
+    long epochMillisAt(long now) {
+        return epochOrigin + now - origin;
+    }
+
+    private long toEpochMillis(long time) {
+        return time == 0L ? 0L : epochOrigin + time - 1;
+    }
+
+    private static long pack(State state, long failureCount, long payload) {
+        return ((long) state.ordinal() << STATE_SHIFT) | (failureCount << FAILURE_COUNT_SHIFT) | payload;
+    }
+
+    private static State stateOf(long word) {
+        return STATES[(int) (word >>> STATE_SHIFT)];
+    }
+
+    private static long failureCountOf(long word) {
+        return (word >>> FAILURE_COUNT_SHIFT) & FAILURE_COUNT_MAX;
+    }
+
+    private static long payloadOf(long word) {
+        return word & PAYLOAD_MASK;
+    }
+
+    static final class Settings {
+        private final CircuitBreakerConfig config;
+        final long callTimeout;
+        private final int failureThreshold;
+        private final RetryTimeoutStrategy retryTimeoutStrategy;
+        private final int minimumNumberOfCalls;
+        private final float failureRateThreshold;
+        private final long slowCallDurationThreshold;
+        private final float slowCallRateThreshold;
+        private final int permittedCallsInHalfOpenState;
+        private final int requiredSuccessesInHalfOpenState;
+
+        private Settings(CircuitBreakerConfig config) {
+            this.config = config;
+            this.callTimeout = config.getCallTimeout();
+            this.failureThreshold = config.getFailureThreshold();
+            this.retryTimeoutStrategy = config.getRetryTimeoutStrategy();
+            this.minimumNumberOfCalls = config.getMinimumNumberOfCalls();
+            this.failureRateThreshold = config.getFailureRateThreshold();
+            this.slowCallDurationThreshold = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationThreshold());
+            this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+            this.permittedCallsInHalfOpenState = config.getPermittedNumberOfCallsInHalfOpenState();
+            this.requiredSuccessesInHalfOpenState = (int) Math.ceil(
+                    permittedCallsInHalfOpenState * config.getSuccessRateThresholdInHalfOpenState() / 100.0f);
+        }
+    }
+
+    interface TransitionListener {
+        void onStateTransition(State from, State to);
+    }
+}
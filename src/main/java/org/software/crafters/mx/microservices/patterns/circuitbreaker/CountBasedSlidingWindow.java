@@ -0,0 +1,76 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Outcomes of the last N calls, one bit per call in preallocated rings of longs (1 = failed, 1 = slow).
+ * The totals are only ever adjusted by the bit flips a CAS actually performed, so they always match
+ * the content of the rings.
+ */
+final class CountBasedSlidingWindow implements SlidingWindow {
+
+    private final int size;
+    private final AtomicLongArray failedOutcomes;
+    private final AtomicLongArray slowOutcomes;
+    private final AtomicLong cursor;
+    private final AtomicInteger numberOfFailedCalls;
+    private final AtomicInteger numberOfSlowCalls;
+
+    CountBasedSlidingWindow(int size) {
+        this.size = size;
+        this.failedOutcomes = new AtomicLongArray((size + Long.SIZE - 1) / Long.SIZE);
+        this.slowOutcomes = new AtomicLongArray((size + Long.SIZE - 1) / Long.SIZE);
+        this.cursor = new AtomicLong();
+        this.numberOfFailedCalls = new AtomicInteger();
+        this.numberOfSlowCalls = new AtomicInteger();
+    }
+
+    @Override
+    public void record(boolean failure, boolean slow, long now) {
+        int slot = (int) (cursor.getAndIncrement() % size);
+        set(failedOutcomes, numberOfFailedCalls, slot, failure);
+        set(slowOutcomes, numberOfSlowCalls, slot, slow);
+    }
+
+    @Override
+    public int getNumberOfCalls(long now) {
+        return (int) Math.min(cursor.get(), size);
+    }
+
+    @Override
+    public int getNumberOfFailedCalls(long now) {
+        return numberOfFailedCalls.get();
+    }
+
+    @Override
+    public int getNumberOfSlowCalls(long now) {
+        return numberOfSlowCalls.get();
+    }
+
+    @Override
+    public void reset() {
+        cursor.set(0L);
+        for (int i = 0; i < failedOutcomes.length(); i++) {
+            numberOfFailedCalls.addAndGet(-Long.bitCount(failedOutcomes.getAndSet(i, 0L)));
+            numberOfSlowCalls.addAndGet(-Long.bitCount(slowOutcomes.getAndSet(i, 0L)));
+        }
+    }
+
+    private static void set(AtomicLongArray outcomes, AtomicInteger total, int slot, boolean value) {
+        int index = slot >>> 6;
+        long mask = 1L << slot;
+        while (true) {
+            long current = outcomes.get(index);
+            long next = value ? current | mask : current & ~mask;
+            if (current == next) {
+                return;
+            }
+            if (outcomes.compareAndSet(index, current, next)) {
+                total.addAndGet(value ? 1 : -1);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class DefaultCircuitBreakerMetrics implements CircuitBreakerMetrics {
+
+    private static final int STATE_COUNT = State.values().length;
+
+    private final LongAdder successfulCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder shortCircuitedCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder fallbackFailures = new LongAdder();
+    private final LongAdder[] stateTransitions = new LongAdder[STATE_COUNT * STATE_COUNT];
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    public DefaultCircuitBreakerMetrics() {
+        for (int i = 0; i < stateTransitions.length; i++) {
+            stateTransitions[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onSuccess(long durationNanos) {
+        successfulCalls.increment();
+        latencyHistogram.record(durationNanos);
+    }
+
+    @Override
+    public void onFailure(long durationNanos) {
+        failedCalls.increment();
+        latencyHistogram.record(durationNanos);
+    }
+
+    @Override
+    public void onShortCircuit() {
+        shortCircuitedCalls.increment();
+    }
+
+    @Override
+    public void onRejected() {
+        rejectedCalls.increment();
+    }
+
+    @Override
+    public void onFallbackFailure() {
+        fallbackFailures.increment();
+    }
+
+    @Override
+    public void onStateTransition(State from, State to) {
+        stateTransitions[from.ordinal() * STATE_COUNT + to.ordinal()].increment();
+    }
+
+    public long getSuccessfulCalls() {
+        return successfulCalls.sum();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+
+    public long getShortCircuitedCalls() {
+        return shortCircuitedCalls.sum();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long getFallbackFailures() {
+        return fallbackFailures.sum();
+    }
+
+    public long getStateTransitions(State from, State to) {
+        return stateTransitions[from.ordinal() * STATE_COUNT + to.ordinal()].sum();
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+}
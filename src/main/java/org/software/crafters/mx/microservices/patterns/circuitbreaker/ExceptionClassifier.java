@@ -0,0 +1,56 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.List;
+
+/*
+ * Decides whether an exception thrown by the remote call counts as a failure. An exception assignable to one
+ * of the ignored types never does; otherwise it does when no recorded types are configured or when it is
+ * assignable to one of them. The decision only depends on the exception class, so it is computed once per
+ * class and cached in a ClassValue instead of walking the type lists on every failure.
+ */
+final class ExceptionClassifier {
+
+    private final List<Class<? extends Throwable>> recordExceptions;
+    private final List<Class<? extends Throwable>> ignoreExceptions;
+    private final ClassValue<Boolean> decisions;
+
+    private ExceptionClassifier(List<Class<? extends Throwable>> recordExceptions,
+                                List<Class<? extends Throwable>> ignoreExceptions) {
+        this.recordExceptions = recordExceptions;
+        this.ignoreExceptions = ignoreExceptions;
+        this.decisions = new ClassValue<>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return classify(type);
+            }
+        };
+    }
+
+    static ExceptionClassifier of(CircuitBreakerConfig config) {
+        if (config.getRecordExceptions().isEmpty() && config.getIgnoreExceptions().isEmpty()) {
+            return null;
+        }
+        return new ExceptionClassifier(config.getRecordExceptions(), config.getIgnoreExceptions());
+    }
+
+    boolean isFailure(Throwable exception) {
+        return decisions.get(exception.getClass());
+    }
+
+    private boolean classify(Class<?> type) {
+        for (Class<? extends Throwable> ignored : ignoreExceptions) {
+            if (ignored.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        if (recordExceptions.isEmpty()) {
+            return true;
+        }
+        for (Class<? extends Throwable> recorded : recordExceptions) {
+            if (recorded.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
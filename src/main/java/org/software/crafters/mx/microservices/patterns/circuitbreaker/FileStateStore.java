@@ -0,0 +1,93 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ * One file per node in a shared directory, one line per breaker:
+ *
+ *   name \t state \t number of calls \t number of failed calls \t last failure time \t published at
+ *
+ * A node rewrites its whole file at every round through an atomic move, so readers never see half a batch.
+ */
+public class FileStateStore implements StateStore {
+
+    private static final String EXTENSION = ".state";
+    private static final Pattern NODE_ID = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final Path directory;
+
+    public FileStateStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void publish(String nodeId, List<BreakerStateSummary> batch) {
+        if (!NODE_ID.matcher(nodeId).matches()) {
+            throw new IllegalArgumentException("nodeId must match " + NODE_ID.pattern());
+        }
+        StringBuilder content = new StringBuilder();
+        for (BreakerStateSummary summary : batch) {
+            content.append(URLEncoder.encode(summary.getName(), StandardCharsets.UTF_8)).append('\t')
+                    .append(summary.getState()).append('\t')
+                    .append(summary.getNumberOfCalls()).append('\t')
+                    .append(summary.getNumberOfFailedCalls()).append('\t')
+                    .append(summary.getLastFailureTime()).append('\t')
+                    .append(summary.getPublishedAt()).append('\n');
+        }
+        try {
+            Path temporary = Files.createTempFile(directory, nodeId, ".tmp");
+            Files.writeString(temporary, content);
+            Files.move(temporary, directory.resolve(nodeId + EXTENSION), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<BreakerStateSummary> fetch() {
+        List<BreakerStateSummary> summaries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String nodeId = fileName.substring(0, fileName.length() - EXTENSION.length());
+                try {
+                    for (String line : Files.readAllLines(file)) {
+                        summaries.add(parse(nodeId, line));
+                    }
+                } catch (NoSuchFileException e) {
+                    // the node replaced its file in between, its next round will be read instead
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return summaries;
+    }
+
+    private static BreakerStateSummary parse(String nodeId, String line) {
+        String[] fields = line.split("\t");
+        return new BreakerStateSummary(nodeId, URLDecoder.decode(fields[0], StandardCharsets.UTF_8),
+                State.valueOf(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                Long.parseLong(fields[4]), Long.parseLong(fields[5]));
+    }
+}
@@ -0,0 +1,81 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * HDR-style log-linear histogram of nanosecond latencies: each power of two is split into SUB_BUCKET_COUNT
+ * linear buckets, which bounds the relative error to 1 / SUB_BUCKET_COUNT. Values above 2^MAX_EXPONENT ns
+ * (about 18 minutes) land in the last bucket. Counts are striped by thread to keep concurrent recorders
+ * off each other's cache lines, and recording never allocates.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+    private static final int STRIPE_COUNT = stripeCount();
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPE_COUNT * BUCKET_COUNT);
+
+    public void record(long nanos) {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1));
+        counts.incrementAndGet(stripe * BUCKET_COUNT + bucketOf(nanos));
+    }
+
+    public long getTotalCount() {
+        long total = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        long[] buckets = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            buckets[i % BUCKET_COUNT] += count;
+            total += count;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0d) / 100.0d * total));
+        long seen = 0L;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) {
+                return highestValueOf(bucket);
+            }
+        }
+        return highestValueOf(BUCKET_COUNT - 1);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0L, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((nanos >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long subBucket = SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static int stripeCount() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        return Integer.highestOneBit(Math.max(1, processors * 2 - 1));
+    }
+}
@@ -0,0 +1,23 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LoopbackStateStore implements StateStore {
+
+    private final Map<String, List<BreakerStateSummary>> batches = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String nodeId, List<BreakerStateSummary> batch) {
+        batches.put(nodeId, List.copyOf(batch));
+    }
+
+    @Override
+    public List<BreakerStateSummary> fetch() {
+        List<BreakerStateSummary> summaries = new ArrayList<>();
+        batches.values().forEach(summaries::addAll);
+        return summaries;
+    }
+}
@@ -0,0 +1,25 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class PartialBatchFailureException extends RuntimeException {
+
+    private final List<?> results;
+    private final Map<Integer, ? extends RuntimeException> failures;
+
+    public PartialBatchFailureException(List<?> results, Map<Integer, ? extends RuntimeException> failures) {
+        super(String.format("%d of %d batch elements failed", failures.size(), results.size()));
+        this.results = Collections.unmodifiableList(results);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public List<?> getResults() {
+        return results;
+    }
+
+    public Map<Integer, ? extends RuntimeException> getFailures() {
+        return failures;
+    }
+}
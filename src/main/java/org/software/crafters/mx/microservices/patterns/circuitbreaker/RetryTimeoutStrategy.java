@@ -0,0 +1,67 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * How long the circuit stays OPEN before letting probes through. The attempt is the number of consecutive
+ * HALF_OPEN rounds that failed since the circuit tripped (0 on the trip itself) and the previous retry
+ * timeout is the one drawn for the last attempt (0 on the trip itself).
+ */
+@FunctionalInterface
+public interface RetryTimeoutStrategy {
+
+    long retryTimeout(int attempt, long previousRetryTimeout);
+
+    static RetryTimeoutStrategy fixed(long retryTimeout) {
+        if (retryTimeout < 0L) {
+            throw new IllegalArgumentException("retryTimeout cannot be negative");
+        }
+        return (attempt, previousRetryTimeout) -> retryTimeout;
+    }
+
+    static RetryTimeoutStrategy exponential(long initialRetryTimeout, double multiplier, long maxRetryTimeout) {
+        validate(initialRetryTimeout, multiplier, maxRetryTimeout);
+        return (attempt, previousRetryTimeout) -> exponentialRetryTimeout(initialRetryTimeout, multiplier,
+                maxRetryTimeout, attempt);
+    }
+
+    static RetryTimeoutStrategy exponentialWithFullJitter(long initialRetryTimeout, double multiplier,
+                                                          long maxRetryTimeout) {
+        validate(initialRetryTimeout, multiplier, maxRetryTimeout);
+        return (attempt, previousRetryTimeout) -> randomBetween(0L,
+                exponentialRetryTimeout(initialRetryTimeout, multiplier, maxRetryTimeout, attempt));
+    }
+
+    static RetryTimeoutStrategy decorrelatedJitter(long initialRetryTimeout, long maxRetryTimeout) {
+        validate(initialRetryTimeout, 3.0d, maxRetryTimeout);
+        return (attempt, previousRetryTimeout) -> {
+            long base = Math.max(initialRetryTimeout, previousRetryTimeout);
+            long upperBound = base > Long.MAX_VALUE / 3L ? Long.MAX_VALUE : base * 3L;
+            return Math.min(maxRetryTimeout, randomBetween(initialRetryTimeout, upperBound));
+        };
+    }
+
+    private static long exponentialRetryTimeout(long initialRetryTimeout, double multiplier, long maxRetryTimeout,
+                                                int attempt) {
+        return Math.min(maxRetryTimeout, (long) (initialRetryTimeout * Math.pow(multiplier, attempt)));
+    }
+
+    private static long randomBetween(long origin, long bound) {
+        if (bound < Long.MAX_VALUE) {
+            return ThreadLocalRandom.current().nextLong(origin, bound + 1);
+        }
+        return origin == bound ? bound : ThreadLocalRandom.current().nextLong(origin, bound);
+    }
+
+    private static void validate(long initialRetryTimeout, double multiplier, long maxRetryTimeout) {
+        if (initialRetryTimeout < 1L) {
+            throw new IllegalArgumentException("initialRetryTimeout must be greater than 0");
+        }
+        if (multiplier < 1.0d) {
+            throw new IllegalArgumentException("multiplier cannot be lower than 1");
+        }
+        if (maxRetryTimeout < initialRetryTimeout) {
+            throw new IllegalArgumentException("maxRetryTimeout cannot be lower than initialRetryTimeout");
+        }
+    }
+}
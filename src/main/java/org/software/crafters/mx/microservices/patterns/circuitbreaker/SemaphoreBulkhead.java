@@ -0,0 +1,42 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+final class SemaphoreBulkhead implements Bulkhead {
+
+    private static final BulkheadFullException BULKHEAD_FULL =
+            new BulkheadFullException("Semaphore bulkhead has no available permits");
+
+    private final Semaphore permits;
+    private final LongAdder rejectedCount;
+
+    SemaphoreBulkhead(int maxConcurrentCalls) {
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.rejectedCount = new LongAdder();
+    }
+
+    @Override
+    public <T, R> R execute(Function<T, R> call, T arg) {
+        if (!permits.tryAcquire()) {
+            rejectedCount.increment();
+            throw BULKHEAD_FULL;
+        }
+        try {
+            return call.apply(arg);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public int getAvailableConcurrentCalls() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -1,123 +1,169 @@
 package org.software.crafters.mx.microservices.patterns.circuitbreaker;
 
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitStateMachine.Settings;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
-public class SimpleCircuitBreaker<T, R> {
-
-    private static final int DEFAULT_FAILURE_THRESHOLD = 1;
-    private static final long DEFAULT_RETRY_TIMEOUT = 3000L;
+public class SimpleCircuitBreaker<T, R> extends AbstractCircuitBreaker {
 
     private final Function<T, R> remoteCall;
-    private final int failureThreshold;
-    private final long retryTimeout;
     private final Function<T, R> fallbackMethod;
-    private final FailureMonitor failureMonitor;
+    private final Bulkhead bulkhead;
+    private final Function<T, R> invocation;
+    private final ConcurrentMap<T, CompletableFuture<R>> inFlightCalls;
+    private final LongAdder coalescedCount = new LongAdder();
 
     public SimpleCircuitBreaker(Function<T, R> remoteCall, Function<T, R> fallbackMethod) {
-        this(remoteCall, DEFAULT_FAILURE_THRESHOLD, DEFAULT_RETRY_TIMEOUT, fallbackMethod);
+        this(remoteCall, CircuitBreakerConfig.ofDefaults(), fallbackMethod);
     }
 
     public SimpleCircuitBreaker(Function<T, R> remoteCall, int failureThreshold,
                                 Function<T, R> fallbackMethod) {
-        this(remoteCall, failureThreshold, DEFAULT_RETRY_TIMEOUT, fallbackMethod);
+        this(remoteCall, CircuitBreakerConfig.builder().failureThreshold(failureThreshold).build(), fallbackMethod);
     }
 
     public SimpleCircuitBreaker(Function<T, R> remoteCall, int failureThreshold, long retryTimeout,
                                 Function<T, R> fallbackMethod) {
+        this(remoteCall, CircuitBreakerConfig.builder().failureThreshold(failureThreshold).retryTimeout(retryTimeout)
+                .build(), fallbackMethod);
+    }
+
+    public SimpleCircuitBreaker(Function<T, R> remoteCall, CircuitBreakerConfig config,
+                                Function<T, R> fallbackMethod) {
+        super(config);
         this.remoteCall = remoteCall;
-        this.failureThreshold = failureThreshold;
-        this.retryTimeout = retryTimeout;
         this.fallbackMethod = fallbackMethod;
-        this.failureMonitor = new FailureMonitor();
+        this.bulkhead = Bulkhead.of(config);
+        this.invocation = bulkhead == null ? remoteCall : arg -> bulkhead.execute(remoteCall, arg);
+        this.inFlightCalls = config.isRequestCoalescing() ? new ConcurrentHashMap<>() : null;
     }
 
     public R call(T arg) throws RuntimeException {
-        switch (getState()) {
-            case CLOSED:
-                try {
-                    return remoteCall.apply(arg);
-                } catch (RuntimeException e) {
-                    failureMonitor.update(e);
-                    throw e;
-                }
-            case OPEN:
-                return fallbackMethod.apply(arg);
-            case HALF_OPEN:
-            default:
-                try {
-                    R result = remoteCall.apply(arg);
-                    failureMonitor.reset();
-                    return result;
-                } catch (RuntimeException e) {
-                    failureMonitor.update(e);
-                    return fallbackMethod.apply(arg);
-                }
+        if (inFlightCalls == null || arg == null) {
+            return execute(arg);
         }
-    }
-
-    private boolean isFailureCountUnderThreshold() {
-        return failureMonitor.getFailureCount() < failureThreshold;
-    }
-
-    private boolean isUnderRetryTimeout() {
-        long elapsedTimeFromLastFailure = System.currentTimeMillis() - failureMonitor.getLastFailureTime();
-        return elapsedTimeFromLastFailure < retryTimeout;
-    }
-
-    public State getState() {
-        if (isFailureCountUnderThreshold()) {
-            return State.CLOSED;
-        } else {
-            if (isUnderRetryTimeout()) {
-                return State.OPEN;
-            } else {
-                return State.HALF_OPEN;
-            }
+        CompletableFuture<R> flight = new CompletableFuture<>();
+        CompletableFuture<R> leader = inFlightCalls.putIfAbsent(arg, flight);
+        if (leader != null) {
+            coalescedCount.increment();
+            return awaitLeader(leader);
+        }
+        try {
+            R result = execute(arg);
+            flight.complete(result);
+            return result;
+        } catch (Throwable t) {
+            flight.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlightCalls.remove(arg, flight);
         }
     }
 
-    public int getFailureThreshold() {
-        return failureThreshold;
-    }
-
-    public long getRetryTimeout() {
-        return retryTimeout;
+    public long getRejectedCount() {
+        return bulkhead == null ? 0L : bulkhead.getRejectedCount();
     }
 
-    public int getFailureCount() {
-        return failureMonitor.getFailureCount();
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
     }
 
-    public long getLastFailureTime() {
-        return failureMonitor.getLastFailureTime();
+    private R execute(T arg) {
+        Settings settings = stateMachine.settings();
+        switch (stateMachine.tryAcquirePermission(settings, now())) {
+            case CLOSED:
+                return callRemote(settings, arg, false);
+            case OPEN:
+                onShortCircuit();
+                return callFallbackMethod(arg);
+            case HALF_OPEN:
+            default:
+                return callRemote(settings, arg, true);
+        }
     }
 
-    public enum State {CLOSED, OPEN, HALF_OPEN}
-
-    private static class FailureMonitor {
-        private int failureCount;
-        private long lastFailureTime;
-
-        FailureMonitor() {
-            reset();
+    private R awaitLeader(CompletableFuture<R> leader) {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the coalesced remote call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
         }
+    }
 
-        private void reset() {
-            this.failureCount = 0;
-            this.lastFailureTime = 0L;
+    private R callRemote(Settings settings, T arg, boolean probe) {
+        long start = ticker.read();
+        R result;
+        try {
+            result = invokeRemoteCall(settings, arg);
+        } catch (BulkheadFullException e) {
+            if (probe) {
+                stateMachine.releasePermission();
+            }
+            onRejected();
+            return callFallbackMethod(arg);
+        } catch (RuntimeException e) {
+            if (!isRecordedFailure(e)) {
+                if (probe) {
+                    stateMachine.releasePermission();
+                }
+                throw e;
+            }
+            long end = ticker.read();
+            onFailure(end, end - start);
+            stateMachine.onFailure(settings, TimeUnit.NANOSECONDS.toMillis(end), end - start);
+            if (probe) {
+                return callFallbackMethod(arg);
+            }
+            throw e;
+        } catch (Throwable e) {
+            // an Error is not classified, but a probe must still give its permit back
+            if (probe) {
+                stateMachine.releasePermission();
+            }
+            throw e;
         }
-
-        private void update(Exception e) {
-            this.failureCount++;
-            this.lastFailureTime = System.currentTimeMillis();
+        long end = ticker.read();
+        if (isFailedResult(result)) {
+            onFailure(end, end - start);
+            stateMachine.onFailure(settings, TimeUnit.NANOSECONDS.toMillis(end), end - start);
+            return probe ? callFallbackMethod(arg) : result;
         }
+        onSuccess(end, end - start);
+        stateMachine.onSuccess(settings, TimeUnit.NANOSECONDS.toMillis(end), end - start);
+        return result;
+    }
 
-        public int getFailureCount() {
-            return this.failureCount;
+    private R callFallbackMethod(T arg) {
+        try {
+            return fallbackMethod.apply(arg);
+        } catch (RuntimeException e) {
+            onFallbackFailure();
+            throw e;
         }
+    }
 
-        public long getLastFailureTime() {
-            return this.lastFailureTime;
+    private R invokeRemoteCall(Settings settings, T arg) {
+        if (settings.callTimeout == 0L) {
+            return invocation.apply(arg);
         }
+        return TimeLimiter.call(() -> invocation.apply(arg), settings.callTimeout);
     }
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
 }
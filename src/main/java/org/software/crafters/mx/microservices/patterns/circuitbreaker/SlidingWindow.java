@@ -0,0 +1,36 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+interface SlidingWindow {
+
+    static SlidingWindow of(CircuitBreakerConfig config) {
+        switch (config.getSlidingWindowType()) {
+            case COUNT_BASED:
+                return new CountBasedSlidingWindow(config.getSlidingWindowSize());
+            case TIME_BASED:
+                return new TimeBasedSlidingWindow(config.getSlidingWindowSize());
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    void record(boolean failure, boolean slow, long now);
+
+    int getNumberOfCalls(long now);
+
+    int getNumberOfFailedCalls(long now);
+
+    int getNumberOfSlowCalls(long now);
+
+    void reset();
+
+    default float getFailureRate(long now) {
+        int numberOfCalls = getNumberOfCalls(now);
+        return numberOfCalls == 0 ? 0.0f : getNumberOfFailedCalls(now) * 100.0f / numberOfCalls;
+    }
+
+    default float getSlowCallRate(long now) {
+        int numberOfCalls = getNumberOfCalls(now);
+        return numberOfCalls == 0 ? 0.0f : getNumberOfSlowCalls(now) * 100.0f / numberOfCalls;
+    }
+}
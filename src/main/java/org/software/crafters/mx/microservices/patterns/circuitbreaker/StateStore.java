@@ -0,0 +1,10 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.List;
+
+public interface StateStore {
+
+    void publish(String nodeId, List<BreakerStateSummary> batch);
+
+    List<BreakerStateSummary> fetch();
+}
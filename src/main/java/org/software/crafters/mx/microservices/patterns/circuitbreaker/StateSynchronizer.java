@@ -0,0 +1,156 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Gossips the breakers of a registry with the other nodes through a StateStore. Every interval the node
+ * publishes one batch with a summary of each breaker that is not CLOSED or has calls in its window, healthy
+ * ones included so that they count in the failure rate of the fleet, then merges the latest batch of every
+ * peer:
+ *
+ *   - a CLOSED breaker opens when a peer reports it OPEN on a failure newer than its own last recovery, or
+ *     when the failure rate of the windows of the whole fleet exceeds its threshold,
+ *   - a breaker that is OPEN, or HALF_OPEN without having sent a probe yet, restarts its retry timeout while
+ *     a peer probes the dependency in HALF_OPEN, so only one node at a time sends probes.
+ *
+ * The batch size is bounded, so the sync traffic of a node is constant per interval whatever the call rate;
+ * past the bound, CLOSED breakers with the fewest failed and then the fewest calls are left out.
+ */
+public final class StateSynchronizer implements AutoCloseable {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    private static final int STALE_INTERVALS = 3;
+
+    private final String nodeId;
+    private final CircuitBreakerRegistry registry;
+    private final StateStore store;
+    private final long interval;
+    private final int maxBatchSize;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    public StateSynchronizer(String nodeId, CircuitBreakerRegistry registry, StateStore store, long interval) {
+        this(nodeId, registry, store, interval, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public StateSynchronizer(String nodeId, CircuitBreakerRegistry registry, StateStore store, long interval,
+                             int maxBatchSize) {
+        if (interval < 1L) {
+            throw new IllegalArgumentException("interval must be greater than 0");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+        }
+        this.nodeId = nodeId;
+        this.registry = registry;
+        this.store = store;
+        this.interval = interval;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker-sync-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                synchronize();
+            } catch (RuntimeException e) {
+                // an unreachable store must not cancel the schedule, the next round retries
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void synchronize() {
+        long now = System.currentTimeMillis();
+        store.publish(nodeId, collect(now));
+        merge(store.fetch(), now);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private List<BreakerStateSummary> collect(long now) {
+        List<BreakerStateSummary> batch = new ArrayList<>();
+        registry.forEach((name, circuitBreaker) -> {
+            long time = circuitBreaker.now();
+            State state = circuitBreaker.stateMachine.currentState(time);
+            if (state == State.HALF_OPEN && !circuitBreaker.stateMachine.isProbing()) {
+                state = State.OPEN;
+            }
+            int numberOfCalls = circuitBreaker.stateMachine.getNumberOfCalls(time);
+            if (state != State.CLOSED || numberOfCalls > 0) {
+                batch.add(new BreakerStateSummary(nodeId, name, state, numberOfCalls,
+                        circuitBreaker.stateMachine.getNumberOfFailedCalls(time), circuitBreaker.getLastFailureTime(),
+                        now));
+            }
+        });
+        if (batch.size() <= maxBatchSize) {
+            return batch;
+        }
+        batch.sort(Comparator.comparing((BreakerStateSummary summary) -> summary.getState() == State.CLOSED)
+                .thenComparing(Comparator.comparingInt(BreakerStateSummary::getNumberOfFailedCalls).reversed())
+                .thenComparing(Comparator.comparingInt(BreakerStateSummary::getNumberOfCalls).reversed()));
+        return new ArrayList<>(batch.subList(0, maxBatchSize));
+    }
+
+    private void merge(List<BreakerStateSummary> summaries, long now) {
+        Map<String, List<BreakerStateSummary>> peers = new HashMap<>();
+        for (BreakerStateSummary summary : summaries) {
+            if (!summary.getNodeId().equals(nodeId) && now - summary.getPublishedAt() < STALE_INTERVALS * interval) {
+                peers.computeIfAbsent(summary.getName(), name -> new ArrayList<>()).add(summary);
+            }
+        }
+        peers.forEach((name, peerSummaries) -> {
+            AbstractCircuitBreaker circuitBreaker = registry.find(name);
+            if (circuitBreaker != null) {
+                merge(circuitBreaker.stateMachine, peerSummaries, circuitBreaker.now());
+            }
+        });
+    }
+
+    private static void merge(CircuitStateMachine stateMachine, List<BreakerStateSummary> peerSummaries, long now) {
+        switch (stateMachine.currentState(now)) {
+            case CLOSED:
+                long openedAt = -1L;
+                long closedAt = stateMachine.getLastCloseTime();
+                int peerCalls = 0;
+                int peerFailedCalls = 0;
+                for (BreakerStateSummary summary : peerSummaries) {
+                    if (summary.getState() == State.OPEN && summary.getLastFailureTime() > closedAt) {
+                        openedAt = Math.max(openedAt, summary.getLastFailureTime());
+                    } else if (summary.getState() == State.CLOSED) {
+                        peerCalls += summary.getNumberOfCalls();
+                        peerFailedCalls += summary.getNumberOfFailedCalls();
+                    }
+                }
+                if (openedAt >= 0L) {
+                    stateMachine.forceOpen(openedAt);
+                } else if (stateMachine.isFailureRateExceeded(now, peerCalls, peerFailedCalls)) {
+                    stateMachine.openIfClosed(now);
+                }
+                break;
+            case OPEN:
+            case HALF_OPEN:
+            default:
+                for (BreakerStateSummary summary : peerSummaries) {
+                    if (summary.getState() == State.HALF_OPEN) {
+                        stateMachine.deferProbes(now);
+                        break;
+                    }
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+final class ThreadPoolBulkhead implements Bulkhead {
+
+    private static final long KEEP_ALIVE_TIME = 60L;
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+    private static final BulkheadFullException BULKHEAD_FULL =
+            new BulkheadFullException("Thread pool bulkhead is saturated");
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejectedCount;
+
+    ThreadPoolBulkhead(int maxThreads, int queueCapacity) {
+        String namePrefix = "circuit-breaker-bulkhead-" + POOL_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.rejectedCount = new LongAdder();
+    }
+
+    @Override
+    public <T, R> R execute(Function<T, R> call, T arg) {
+        Future<R> future;
+        try {
+            future = executor.submit(() -> call.apply(arg));
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw BULKHEAD_FULL;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the remote call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public int getAvailableConcurrentCalls() {
+        return Math.max(0, executor.getMaximumPoolSize() - executor.getActiveCount());
+    }
+
+    int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
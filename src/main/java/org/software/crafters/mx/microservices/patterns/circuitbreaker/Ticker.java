@@ -0,0 +1,19 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+/*
+ * Source of monotonic time in nanoseconds with System.nanoTime semantics: only differences between two
+ * reads are meaningful, and they are immune to wall-clock adjustments.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    long read();
+
+    static Ticker system() {
+        return System::nanoTime;
+    }
+
+    static Ticker cached() {
+        return CachedTicker.Shared.INSTANCE;
+    }
+}
@@ -0,0 +1,87 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Outcomes of the last N seconds, one bucket per second in a preallocated ring:
+ *
+ *   | epoch second | number of calls | number of failed calls | number of slow calls |
+ *
+ * The thread that moves a bucket to a new second resets its counters, so a record racing with
+ * that roll-over can be lost. That is the price for recording without locks nor allocation.
+ */
+final class TimeBasedSlidingWindow implements SlidingWindow {
+
+    private static final int BUCKET_STRIDE = 4;
+    private static final int CALLS = 1;
+    private static final int FAILED_CALLS = 2;
+    private static final int SLOW_CALLS = 3;
+
+    private final int size;
+    private final AtomicLongArray buckets;
+
+    TimeBasedSlidingWindow(int size) {
+        this.size = size;
+        this.buckets = new AtomicLongArray(size * BUCKET_STRIDE);
+        reset();
+    }
+
+    @Override
+    public void record(boolean failure, boolean slow, long now) {
+        long second = toSecond(now);
+        int bucket = (int) (second % size) * BUCKET_STRIDE;
+        long epoch = buckets.get(bucket);
+        if (epoch < second && buckets.compareAndSet(bucket, epoch, second)) {
+            buckets.set(bucket + CALLS, 0L);
+            buckets.set(bucket + FAILED_CALLS, 0L);
+            buckets.set(bucket + SLOW_CALLS, 0L);
+        }
+        buckets.incrementAndGet(bucket + CALLS);
+        if (failure) {
+            buckets.incrementAndGet(bucket + FAILED_CALLS);
+        }
+        if (slow) {
+            buckets.incrementAndGet(bucket + SLOW_CALLS);
+        }
+    }
+
+    @Override
+    public int getNumberOfCalls(long now) {
+        return sum(CALLS, toSecond(now));
+    }
+
+    @Override
+    public int getNumberOfFailedCalls(long now) {
+        return sum(FAILED_CALLS, toSecond(now));
+    }
+
+    @Override
+    public int getNumberOfSlowCalls(long now) {
+        return sum(SLOW_CALLS, toSecond(now));
+    }
+
+    @Override
+    public void reset() {
+        for (int bucket = 0; bucket < buckets.length(); bucket += BUCKET_STRIDE) {
+            buckets.set(bucket, Long.MIN_VALUE);
+            buckets.set(bucket + CALLS, 0L);
+            buckets.set(bucket + FAILED_CALLS, 0L);
+            buckets.set(bucket + SLOW_CALLS, 0L);
+        }
+    }
+
+    private int sum(int counter, long second) {
+        long total = 0L;
+        for (int bucket = 0; bucket < buckets.length(); bucket += BUCKET_STRIDE) {
+            long age = second - buckets.get(bucket);
+            if (age >= 0L && age < size) {
+                total += buckets.get(bucket + counter);
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    private static long toSecond(long millis) {
+        return Math.floorDiv(millis, 1000L);
+    }
+}
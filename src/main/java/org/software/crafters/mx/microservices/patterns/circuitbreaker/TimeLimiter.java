@@ -0,0 +1,113 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * Enforces call timeouts for every breaker with one shared daemon scheduler instead of a thread per call.
+ * A blocking call runs on its caller thread, keeping its thread locals, and the scheduler interrupts that
+ * thread when the timeout elapses. A call that ignores interruption, such as a socket read without a read
+ * timeout, holds its caller until it returns and is then recorded as timed out, so the client of the
+ * remote call still needs timeouts of its own.
+ */
+final class TimeLimiter {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private TimeLimiter() {
+    }
+
+    static <R> R call(Supplier<R> call, long callTimeout) {
+        Interruption interruption = new Interruption(Thread.currentThread());
+        ScheduledFuture<?> timeout = SCHEDULER.schedule(interruption, callTimeout, TimeUnit.MILLISECONDS);
+        R result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (interruption.complete()) {
+                throw e;
+            }
+            throw timeoutException(callTimeout, e);
+        } finally {
+            timeout.cancel(false);
+        }
+        if (!interruption.complete()) {
+            throw timeoutException(callTimeout, null);
+        }
+        return result;
+    }
+
+    static <R> CompletionStage<R> call(CompletionStage<R> stage, long callTimeout) {
+        if (callTimeout == 0L) {
+            return stage;
+        }
+        CompletableFuture<R> result = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = SCHEDULER.schedule(
+                () -> result.completeExceptionally(new CallTimeoutException(callTimeout)),
+                callTimeout, TimeUnit.MILLISECONDS);
+        stage.whenComplete((value, throwable) -> {
+            timeout.cancel(false);
+            if (throwable == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(throwable);
+            }
+        });
+        return result;
+    }
+
+    private static CallTimeoutException timeoutException(long callTimeout, RuntimeException cause) {
+        CallTimeoutException exception = new CallTimeoutException(callTimeout);
+        if (cause != null) {
+            exception.initCause(cause);
+        }
+        return exception;
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static final class Interruption extends AtomicInteger implements Runnable {
+        private static final int RUNNING = 0;
+        private static final int COMPLETED = 1;
+        private static final int INTERRUPTING = 2;
+        private static final int INTERRUPTED = 3;
+
+        private final Thread caller;
+
+        Interruption(Thread caller) {
+            this.caller = caller;
+        }
+
+        @Override
+        public void run() {
+            if (compareAndSet(RUNNING, INTERRUPTING)) {
+                caller.interrupt();
+                set(INTERRUPTED);
+            }
+        }
+
+        private boolean complete() {
+            if (compareAndSet(RUNNING, COMPLETED)) {
+                return true;
+            }
+            while (get() != INTERRUPTED) {
+                Thread.onSpinWait();
+            }
+            Thread.interrupted();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Thread pool bulkhead counterpart for JDK 21: every call runs on a fresh virtual thread of a per-breaker
+ * executor, so a blocked remote call parks a virtual thread instead of holding a platform one. Concurrency is
+ * bounded by a semaphore instead of a pool size and queue, since virtual threads are not worth pooling.
+ */
+final class VirtualThreadBulkhead implements Bulkhead {
+
+    private static final AtomicInteger EXECUTOR_NUMBER = new AtomicInteger();
+    private static final BulkheadFullException BULKHEAD_FULL =
+            new BulkheadFullException("Virtual thread bulkhead has no available permits");
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final LongAdder rejectedCount;
+
+    VirtualThreadBulkhead(int maxConcurrentCalls) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("circuit-breaker-virtual-" + EXECUTOR_NUMBER.incrementAndGet() + "-", 1L).factory());
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.rejectedCount = new LongAdder();
+    }
+
+    @Override
+    public <T, R> R execute(Function<T, R> call, T arg) {
+        if (!permits.tryAcquire()) {
+            rejectedCount.increment();
+            throw BULKHEAD_FULL;
+        }
+        Future<R> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return call.apply(arg);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the remote call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public int getAvailableConcurrentCalls() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
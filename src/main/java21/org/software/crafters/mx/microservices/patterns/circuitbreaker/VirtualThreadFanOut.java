@@ -0,0 +1,78 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Calls several breaker-protected dependencies in parallel, one virtual thread each, and returns their
+ * results in order:
+ *
+ *   List<Object> results = VirtualThreadFanOut.invokeAll(List.of(
+ *           () -> customers.call(id), () -> orders.call(id)), 200L);
+ *
+ * The calls are scoped to the invocation like a StructuredTaskScope.ShutdownOnFailure, which is still a
+ * preview API in JDK 21: the first failure, the deadline or an interrupt cancels the calls still running,
+ * and no call outlives invokeAll.
+ */
+public final class VirtualThreadFanOut {
+
+    private static final ThreadFactory THREAD_FACTORY = Thread.ofVirtual().name("circuit-breaker-fan-out-", 1L)
+            .factory();
+
+    private VirtualThreadFanOut() {
+    }
+
+    public static <R> List<R> invokeAll(List<? extends Supplier<? extends R>> calls, long timeout) {
+        if (timeout < 1L) {
+            throw new IllegalArgumentException("timeout must be greater than 0");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        List<Future<R>> futures = new ArrayList<>(calls.size());
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(THREAD_FACTORY)) {
+            ExecutorCompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+            try {
+                for (Supplier<? extends R> call : calls) {
+                    futures.add(completionService.submit(call::get));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    Future<R> completed = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (completed == null) {
+                        throw new CallTimeoutException(timeout);
+                    }
+                    if (completed.state() == Future.State.FAILED) {
+                        throw propagate(completed.exceptionNow());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the fan-out calls", e);
+            } finally {
+                for (Future<R> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        for (Future<R> future : futures) {
+            results.add(future.resultNow());
+        }
+        return results;
+    }
+
+    private static RuntimeException propagate(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(failure);
+    }
+}
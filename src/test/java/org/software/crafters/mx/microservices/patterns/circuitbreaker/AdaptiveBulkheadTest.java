@@ -0,0 +1,84 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveBulkheadTest {
+
+    @Test
+    public void limitGrowsWhileCallsAreFastAndSaturated() {
+        System.out.println("Test - Limit grows while calls are fast and the limit is in use");
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(1, 10, new FakeTicker());
+
+        for (int i = 0; i < 20; i++) {
+            bulkhead.execute(name -> "Hello " + name + "!", "Gerardo");
+        }
+        assertEquals(3, bulkhead.getLimit());
+    }
+
+    @Test
+    public void limitShrinksOnFailures() {
+        System.out.println("Test - Limit shrinks multiplicatively on failures");
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(10, 10, new FakeTicker());
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, () -> bulkhead.execute(name -> {
+                throw new IllegalStateException("Remote service unavailable");
+            }, "Gerardo"));
+        }
+        assertEquals(5, bulkhead.getLimit());
+    }
+
+    @Test
+    public void limitShrinksWhenLatencyDegrades() {
+        System.out.println("Test - Limit shrinks when the round-trip time degrades");
+        FakeTicker ticker = new FakeTicker();
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(10, 10, ticker);
+
+        bulkhead.execute(name -> name, "Gerardo");
+        bulkhead.execute(name -> {
+            ticker.advance(20L, TimeUnit.MILLISECONDS);
+            return name;
+        }, "Gerardo");
+        assertEquals(9, bulkhead.getLimit());
+    }
+
+    @Test
+    public void callsOverTheLimitAreShed() throws Exception {
+        System.out.println("Test - Calls over the concurrency limit are shed");
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(1, 10, new FakeTicker());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> running = executor.submit(() -> bulkhead.execute(name -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return name;
+            }, "Gerardo"));
+            started.await(5, TimeUnit.SECONDS);
+
+            assertThrows(BulkheadFullException.class, () -> bulkhead.execute(name -> name, "Ana"));
+            assertEquals(1L, bulkhead.getRejectedCount());
+            release.countDown();
+            assertEquals("Gerardo", running.get(5, TimeUnit.SECONDS));
+            assertTrue(bulkhead.getAvailableConcurrentCalls() >= 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
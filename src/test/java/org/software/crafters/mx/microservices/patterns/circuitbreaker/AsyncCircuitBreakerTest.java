@@ -0,0 +1,210 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncCircuitBreakerTest {
+
+    private static final CompletableFuture<String> FALLBACK_RESULT = CompletableFuture.completedFuture("Hello World!");
+
+    private Function<String, CompletionStage<String>> remoteCall;
+    private Function<String, CompletionStage<String>> fallbackMethod;
+    private FakeTicker ticker;
+
+    @BeforeEach
+    public void setup() {
+        ticker = new FakeTicker();
+        remoteCall = name -> CompletableFuture.supplyAsync(() -> {
+            if (name != null) {
+                return String.format("Hello %s!", name);
+            }
+            throw new IllegalArgumentException("Invalid argument: name cannot be null");
+        });
+
+        fallbackMethod = arg -> FALLBACK_RESULT;
+    }
+
+    @Test
+    public void callSuccessfully() {
+        System.out.println("Async Test - Call successfully [Closed state]");
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(remoteCall, fallbackMethod);
+        assertEquals("Hello Gerardo!", join(circuitBreaker.call("Gerardo")));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void failureIsRecordedWhenTheStageCompletes() {
+        System.out.println("Async Test - Failure is recorded when the stage completes, not when it is submitted");
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(name -> pending,
+                fallbackMethod);
+
+        CompletionStage<String> result = circuitBreaker.call("Gerardo");
+        assertEquals(0, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        pending.completeExceptionally(new IllegalStateException("Remote service unavailable"));
+        assertThrows(CompletionException.class, () -> join(result));
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callFailedAndFailureCountReachesThreshold() {
+        System.out.println("Async Test - Call failed and failure count reaches threshold [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().failureThreshold(3).build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        assertEquals(3, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callInOpenStateShortCircuitsToTheFallbackStage() {
+        System.out.println("Async Test - Call in Open state short-circuits to the fallback stage");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(5000L).build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        assertSame(FALLBACK_RESULT, circuitBreaker.call("Gerardo"));
+    }
+
+    @Test
+    public void callInHalfOpenStateSuccessfully() throws Exception {
+        System.out.println("Async Test - Call in Half-Open state successfully [Goes to Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(100L).ticker(ticker)
+                .build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", join(circuitBreaker.call("Gerardo")));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void callInHalfOpenStateFailed() throws Exception {
+        System.out.println("Async Test - Call in Half-Open state failed [Goes to Open state again]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(100L).ticker(ticker)
+                .build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello World!", join(circuitBreaker.call(null)));
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(4, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void probeThatNeverCompletesTimesOutWithoutCallTimeout() {
+        System.out.println("Async Test - Half-Open probe that never completes times out [Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(100L).ticker(ticker)
+                .build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(
+                name -> "Never".equals(name) ? new CompletableFuture<>() : remoteCall.apply(name), config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello World!", join(circuitBreaker.call("Never")));
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(4, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void remoteCallThrowingSynchronouslyIsRecordedAsFailure() {
+        System.out.println("Async Test - Remote call throwing synchronously is recorded as a failure");
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(name -> {
+            throw new IllegalStateException("Remote service unavailable");
+        }, fallbackMethod);
+
+        CompletionStage<String> result = circuitBreaker.call("Gerardo");
+        assertTrue(result.toCompletableFuture().isCompletedExceptionally());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void stageOverrunningCallTimeoutIsRecordedAsFailure() {
+        System.out.println("Async Test - Stage overrunning the call timeout is recorded as a failure");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().callTimeout(50L).build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(
+                name -> new CompletableFuture<>(), config, fallbackMethod);
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> join(circuitBreaker.call("Gerardo")));
+        assertTrue(exception.getCause() instanceof CallTimeoutException);
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void concurrentEqualCallsShareOneStage() {
+        System.out.println("Async Test - Concurrent equal calls share one remote stage [Request coalescing]");
+        AtomicInteger remoteInvocations = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(name -> {
+            remoteInvocations.incrementAndGet();
+            return pending;
+        }, CircuitBreakerConfig.builder().failureThreshold(2).requestCoalescing(true).build(), fallbackMethod);
+
+        CompletionStage<String> first = circuitBreaker.call("Gerardo");
+        CompletionStage<String> second = circuitBreaker.call("Gerardo");
+        assertEquals(1, remoteInvocations.get());
+        assertEquals(1L, circuitBreaker.getCoalescedCount());
+
+        pending.completeExceptionally(new IllegalStateException("Remote service unavailable"));
+        assertThrows(CompletionException.class, () -> join(first));
+        assertThrows(CompletionException.class, () -> join(second));
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void ignoredExceptionDoesNotCountAsFailure() {
+        System.out.println("Async Test - Ignored exception does not count as a failure [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .ignoreExceptions(IllegalArgumentException.class)
+                .build();
+        AsyncCircuitBreaker<String, String> circuitBreaker = new AsyncCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> join(circuitBreaker.call(null)));
+        assertTrue(exception.getCause() instanceof IllegalArgumentException);
+        assertEquals(0, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private static String join(CompletionStage<String> stage) {
+        return stage.toCompletableFuture().join();
+    }
+
+    private void callFailedUntilReachesThreshold(AsyncCircuitBreaker<String, String> circuitBreaker) {
+        while (circuitBreaker.getFailureCount() < circuitBreaker.getFailureThreshold()) {
+            try {
+                join(circuitBreaker.call(null));
+            } catch (CompletionException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
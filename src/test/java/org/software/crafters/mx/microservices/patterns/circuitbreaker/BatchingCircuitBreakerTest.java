@@ -0,0 +1,154 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchingCircuitBreakerTest {
+
+    private AtomicInteger batchInvocations;
+    private Function<List<String>, List<String>> batchCall;
+    private Function<String, String> fallbackMethod;
+
+    @BeforeEach
+    public void setup() {
+        batchInvocations = new AtomicInteger();
+        batchCall = names -> {
+            batchInvocations.incrementAndGet();
+            List<String> results = new ArrayList<>();
+            for (String name : names) {
+                if (name == null) {
+                    throw new IllegalArgumentException("Invalid argument: name cannot be null");
+                }
+                results.add(String.format("Hello %s!", name));
+            }
+            return results;
+        };
+        fallbackMethod = arg -> "Hello World!";
+    }
+
+    @Test
+    public void fullBatchIsDispatchedAsOneCall() throws Exception {
+        System.out.println("Batching Test - Full batch is dispatched as one call [Closed state]");
+        try (BatchingCircuitBreaker<String, String> circuitBreaker = BatchingCircuitBreaker
+                .builder(batchCall, fallbackMethod).maxBatchSize(3).maxBatchDelay(60_000_000L).build()) {
+            CompletableFuture<String> first = circuitBreaker.submit("Gerardo");
+            CompletableFuture<String> second = circuitBreaker.submit("Ana");
+            assertFalse(first.isDone());
+            CompletableFuture<String> third = circuitBreaker.submit("Luis");
+
+            assertEquals("Hello Gerardo!", first.get());
+            assertEquals("Hello Ana!", second.get());
+            assertEquals("Hello Luis!", third.get());
+            assertEquals(1, batchInvocations.get());
+        }
+    }
+
+    @Test
+    public void expiredBatchIsDispatchedAfterMaxBatchDelay() {
+        System.out.println("Batching Test - Batch is dispatched once the max batch delay expires [Closed state]");
+        try (BatchingCircuitBreaker<String, String> circuitBreaker = BatchingCircuitBreaker
+                .builder(batchCall, fallbackMethod).maxBatchSize(100).maxBatchDelay(1_000L).build()) {
+            assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+            assertEquals(1, batchInvocations.get());
+        }
+    }
+
+    @Test
+    public void partialFailuresAreCountedPerElement() throws Exception {
+        System.out.println("Batching Test - Partial failures are counted per element [Closed state]");
+        Function<List<String>, List<String>> partiallyFailingBatchCall = names -> {
+            throw new PartialBatchFailureException(List.of("Hello Gerardo!", "", "Hello Luis!"),
+                    Map.of(1, new IllegalStateException("Ana is unavailable")));
+        };
+        try (BatchingCircuitBreaker<String, String> circuitBreaker = BatchingCircuitBreaker
+                .builder(partiallyFailingBatchCall, fallbackMethod)
+                .config(CircuitBreakerConfig.builder().failureThreshold(2).build()).maxBatchSize(3)
+                .maxBatchDelay(60_000_000L).build()) {
+            CompletableFuture<String> first = circuitBreaker.submit("Gerardo");
+            CompletableFuture<String> second = circuitBreaker.submit("Ana");
+            CompletableFuture<String> third = circuitBreaker.submit("Luis");
+
+            assertEquals("Hello Gerardo!", first.get());
+            ExecutionException exception = assertThrows(ExecutionException.class, second::get);
+            assertTrue(exception.getCause() instanceof IllegalStateException);
+            assertEquals("Hello Luis!", third.get());
+            assertEquals(1, circuitBreaker.getFailureCount());
+            assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        }
+    }
+
+    @Test
+    public void failedBatchCountsEveryElementAndOpenStateShortCircuitsTheNextBatch() throws Exception {
+        System.out.println("Batching Test - Failed batch counts every element [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(60_000L).build();
+        try (BatchingCircuitBreaker<String, String> circuitBreaker = BatchingCircuitBreaker
+                .builder(batchCall, fallbackMethod).config(config).maxBatchSize(3).maxBatchDelay(60_000_000L)
+                .build()) {
+            List<CompletableFuture<String>> results = List.of(circuitBreaker.submit("Gerardo"),
+                    circuitBreaker.submit(null), circuitBreaker.submit("Luis"));
+            for (CompletableFuture<String> result : results) {
+                ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+                assertTrue(exception.getCause() instanceof IllegalArgumentException);
+            }
+            assertEquals(3, circuitBreaker.getFailureCount());
+            assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+            CompletableFuture<String> first = circuitBreaker.submit("Gerardo");
+            CompletableFuture<String> second = circuitBreaker.submit("Ana");
+            CompletableFuture<String> third = circuitBreaker.submit("Luis");
+            assertEquals("Hello World!", first.get());
+            assertEquals("Hello World!", second.get());
+            assertEquals("Hello World!", third.get());
+            assertEquals(1, batchInvocations.get());
+        }
+    }
+
+    @Test
+    public void errorInBatchCallCompletesEveryPendingCall() {
+        System.out.println("Batching Test - Error thrown by the batch call completes every pending call");
+        try (BatchingCircuitBreaker<String, String> circuitBreaker = BatchingCircuitBreaker
+                .builder(names -> {
+                    throw new StackOverflowError("Batch call overflowed");
+                }, fallbackMethod).maxBatchSize(2).maxBatchDelay(60_000_000L).build()) {
+            CompletableFuture<String> first = circuitBreaker.submit("Gerardo");
+
+            assertThrows(StackOverflowError.class, () -> circuitBreaker.submit("Ana"));
+            ExecutionException e = assertThrows(ExecutionException.class, first::get);
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+    }
+
+    @Test
+    public void closeDispatchesPendingCalls() throws Exception {
+        System.out.println("Batching Test - Closing dispatches the pending calls");
+        BatchingCircuitBreaker<String, String> circuitBreaker = BatchingCircuitBreaker
+                .builder(batchCall, fallbackMethod).maxBatchDelay(60_000_000L).build();
+        CompletableFuture<String> result = circuitBreaker.submit("Gerardo");
+
+        circuitBreaker.close();
+        assertEquals("Hello Gerardo!", result.get());
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.submit("Ana"));
+    }
+
+    @Test
+    public void invalidBatchingIsRejected() {
+        System.out.println("Batching Test - Invalid batching parameters are rejected");
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchingCircuitBreaker.builder(batchCall, fallbackMethod).maxBatchSize(0).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchingCircuitBreaker.builder(batchCall, fallbackMethod).maxBatchDelay(0L).build());
+    }
+}
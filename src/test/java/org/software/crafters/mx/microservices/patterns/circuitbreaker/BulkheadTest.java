@@ -0,0 +1,91 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BulkheadTest {
+
+    @Test
+    public void semaphoreBulkheadRejectsWhenSaturated() throws Exception {
+        System.out.println("Test - Semaphore bulkhead rejects calls when saturated");
+        SemaphoreBulkhead bulkhead = new SemaphoreBulkhead(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> bulkhead.execute(blockingCall(started, release), "Gerardo"));
+            Future<String> second = executor.submit(() -> bulkhead.execute(blockingCall(started, release), "Ana"));
+            started.await(5, TimeUnit.SECONDS);
+
+            assertEquals(0, bulkhead.getAvailableConcurrentCalls());
+            assertThrows(BulkheadFullException.class, () -> bulkhead.execute(name -> "Hello " + name + "!", "Luis"));
+            assertEquals(1L, bulkhead.getRejectedCount());
+
+            release.countDown();
+            assertEquals("Hello Gerardo!", first.get(5, TimeUnit.SECONDS));
+            assertEquals("Hello Ana!", second.get(5, TimeUnit.SECONDS));
+            assertEquals(2, bulkhead.getAvailableConcurrentCalls());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void threadPoolBulkheadRejectsWhenQueueIsFull() throws Exception {
+        System.out.println("Test - Thread pool bulkhead rejects calls when its queue is full");
+        ThreadPoolBulkhead bulkhead = new ThreadPoolBulkhead(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = executor.submit(() -> bulkhead.execute(blockingCall(started, release), "Gerardo"));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> queued = executor.submit(() -> bulkhead.execute(name -> "Hello " + name + "!", "Ana"));
+            while (bulkhead.getQueueDepth() == 0) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(BulkheadFullException.class, () -> bulkhead.execute(name -> "Hello " + name + "!", "Luis"));
+            assertEquals(1L, bulkhead.getRejectedCount());
+
+            release.countDown();
+            assertEquals("Hello Gerardo!", running.get(5, TimeUnit.SECONDS));
+            assertEquals("Hello Ana!", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void threadPoolBulkheadPropagatesRemoteFailure() {
+        System.out.println("Test - Thread pool bulkhead propagates the remote failure");
+        ThreadPoolBulkhead bulkhead = new ThreadPoolBulkhead(1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> bulkhead.execute(name -> {
+            throw new IllegalArgumentException("Invalid argument: name cannot be null");
+        }, null));
+    }
+
+    private static Function<String, String> blockingCall(CountDownLatch started, CountDownLatch release) {
+        return name -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Hello " + name + "!";
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachedTickerTest {
+
+    @Test
+    public void followsTheSystemTickerWithinItsResolution() throws InterruptedException {
+        System.out.println("Test - Cached ticker follows the system ticker within its resolution");
+        try (CachedTicker ticker = new CachedTicker(1L, TimeUnit.MILLISECONDS)) {
+            long first = ticker.read();
+            TimeUnit.MILLISECONDS.sleep(20L);
+            long second = ticker.read();
+
+            assertTrue(second - first >= TimeUnit.MILLISECONDS.toNanos(10L));
+            assertTrue(System.nanoTime() - second < TimeUnit.MILLISECONDS.toNanos(100L));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new CachedTicker(0L, TimeUnit.MILLISECONDS));
+    }
+}
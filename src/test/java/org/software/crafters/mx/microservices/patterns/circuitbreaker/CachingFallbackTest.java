@@ -0,0 +1,95 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingFallbackTest {
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void servesTheLastSuccessfulResultWhileOpen() {
+        System.out.println("Test - Caching fallback serves the last successful result [OPEN]");
+        AtomicBoolean available = new AtomicBoolean(true);
+        Function<String, String> remoteCall = name -> {
+            if (!available.get()) {
+                throw new IllegalStateException("Remote service unavailable");
+            }
+            return String.format("Hello %s!", name);
+        };
+        CachingFallback<String, String> cache = CachingFallback.<String, String>builder(name -> "Hello World!")
+                .ticker(ticker).executor(Runnable::run).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(cache.recording(remoteCall),
+                CircuitBreakerConfig.builder().ticker(ticker).build(), cache);
+
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        available.set(false);
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.call("Ana"));
+
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals("Hello World!", circuitBreaker.call("Ana"));
+        assertEquals("Hello World!", circuitBreaker.call(null));
+    }
+
+    @Test
+    public void doesNotCacheResultsRecordedAsFailures() {
+        System.out.println("Test - Caching fallback does not cache results the breaker records as failures [OPEN]");
+        Function<String, String> remoteCall = name -> "Ana".equals(name) ? "Error" : String.format("Hello %s!", name);
+        CachingFallback<String, String> cache = CachingFallback.<String, String>builder(name -> "Hello World!")
+                .ticker(ticker).executor(Runnable::run).build();
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().recordResult("Error"::equals).ticker(ticker)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(
+                cache.recording(remoteCall, config), config, cache);
+
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals("Error", circuitBreaker.call("Ana"));
+
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals("Hello World!", circuitBreaker.call("Ana"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void stopsServingStaleResults() {
+        System.out.println("Test - Caching fallback stops serving results older than the max staleness");
+        CachingFallback<String, String> cache = CachingFallback.<String, String>builder(name -> "Hello World!")
+                .maxStaleness(1000L).ticker(ticker).executor(Runnable::run).build();
+
+        cache.record("Gerardo", "Hello Gerardo!");
+        ticker.advance(1000L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello Gerardo!", cache.apply("Gerardo"));
+        ticker.advance(1L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello World!", cache.apply("Gerardo"));
+
+        cache.record("Gerardo", "Hello again Gerardo!");
+        assertEquals("Hello again Gerardo!", cache.apply("Gerardo"));
+    }
+
+    @Test
+    public void evictsFromProbationBeforeProtected() {
+        System.out.println("Test - Caching fallback evicts entries used once before entries used again");
+        CachingFallback<String, String> cache = CachingFallback.<String, String>builder(name -> "Hello World!")
+                .maximumSize(10).ticker(ticker).executor(Runnable::run).build();
+
+        cache.record("Gerardo", "Hello Gerardo!");
+        cache.record("Gerardo", "Hello Gerardo!");
+        for (int i = 0; i < 100; i++) {
+            cache.record("Guest " + i, "Hello Guest " + i + "!");
+        }
+        cache.cleanUp();
+
+        assertEquals(10, cache.size());
+        assertEquals("Hello Gerardo!", cache.apply("Gerardo"));
+        assertEquals("Hello Guest 99!", cache.apply("Guest 99"));
+        assertEquals("Hello World!", cache.apply("Guest 0"));
+    }
+}
@@ -0,0 +1,169 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.env.MockPropertySource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakerConfigRefresherTest {
+
+    private final Function<String, String> remoteCall = name -> {
+        if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null");
+        }
+        return String.format("Hello %s!", name);
+    };
+
+    private final Function<String, String> fallbackMethod = name -> "Hello World!";
+
+    private MockPropertySource properties;
+    private CircuitBreakerRegistry registry;
+    private CircuitBreakerConfigRefresher refresher;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new MockPropertySource();
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(properties);
+        registry = CircuitBreakerRegistry.builder()
+                .defaultConfig(CircuitBreakerConfig.builder().failureThreshold(3).build())
+                .build();
+        refresher = new CircuitBreakerConfigRefresher(registry, environment);
+    }
+
+    @Test
+    public void refreshReconfiguresLiveBreakerKeepingItsState() {
+        System.out.println("Test - Refresh applies the bound properties to a live breaker [Keeps its failure count]");
+        SimpleCircuitBreaker<String, String> payments = registry.circuitBreaker("payments", remoteCall, fallbackMethod);
+        callFailedTimes(payments, 2);
+
+        properties.setProperty("circuitbreaker.instances.payments.failure-threshold", "5");
+        properties.setProperty("circuitbreaker.instances.payments.retry-timeout", "10000");
+        refresher.refresh();
+
+        assertSame(payments, registry.find("payments"));
+        assertEquals(5, payments.getFailureThreshold());
+        assertEquals(10000L, payments.getRetryTimeout());
+        assertEquals(2, payments.getFailureCount());
+        callFailedTimes(payments, 2);
+        assertEquals(State.CLOSED, payments.getState());
+        callFailedTimes(payments, 1);
+        assertEquals(State.OPEN, payments.getState());
+    }
+
+    @Test
+    public void refreshWithInvalidValueLeavesEveryBreakerUntouched() {
+        System.out.println("Test - Refresh with an invalid value fails [Leaves every breaker untouched]");
+        SimpleCircuitBreaker<String, String> payments = registry.circuitBreaker("payments", remoteCall, fallbackMethod);
+        SimpleCircuitBreaker<String, String> shipping = registry.circuitBreaker("shipping", remoteCall, fallbackMethod);
+
+        properties.setProperty("circuitbreaker.instances.payments.failure-threshold", "5");
+        properties.setProperty("circuitbreaker.instances.shipping.failure-threshold", "0");
+        assertThrows(IllegalArgumentException.class, () -> refresher.refresh());
+
+        assertEquals(3, payments.getFailureThreshold());
+        assertEquals(3, shipping.getFailureThreshold());
+    }
+
+    @Test
+    public void removedPropertyRestoresTheOriginalValue() {
+        System.out.println("Test - Refresh after removing a property [Restores the value the breaker was created with]");
+        SimpleCircuitBreaker<String, String> payments = registry.circuitBreaker("payments", remoteCall, fallbackMethod);
+
+        properties.setProperty("circuitbreaker.instances.payments.failure-threshold", "5");
+        properties.setProperty("circuitbreaker.instances.payments.call-timeout", "250");
+        refresher.refresh();
+        assertEquals(5, payments.getFailureThreshold());
+        assertEquals(250L, payments.getConfig().getCallTimeout());
+
+        properties.getSource().remove("circuitbreaker.instances.payments.failure-threshold");
+        properties.setProperty("circuitbreaker.instances.payments.call-timeout", "500");
+        refresher.refresh();
+        assertEquals(3, payments.getFailureThreshold());
+        assertEquals(500L, payments.getConfig().getCallTimeout());
+    }
+
+    @Test
+    public void breakerCreatedAfterRefreshStartsWithTheBoundProperties() {
+        System.out.println("Test - Breaker created after a refresh [Starts with the bound properties]");
+        properties.setProperty("circuitbreaker.instances.payments.failure-threshold", "5");
+        refresher.refresh();
+
+        SimpleCircuitBreaker<String, String> payments = registry.circuitBreaker("payments", remoteCall, fallbackMethod);
+        SimpleCircuitBreaker<String, String> shipping = registry.circuitBreaker("shipping", remoteCall, fallbackMethod);
+        assertEquals(5, payments.getFailureThreshold());
+        assertEquals(3, shipping.getFailureThreshold());
+
+        properties.getSource().remove("circuitbreaker.instances.payments.failure-threshold");
+        refresher.refresh();
+        assertEquals(3, payments.getFailureThreshold());
+    }
+
+    @Test
+    public void breakerCreatedDuringRefreshEndsWithTheBoundProperties() throws Exception {
+        System.out.println("Test - Breaker created while a refresh runs [Ends with the bound properties]");
+        CountDownLatch resolved = new CountDownLatch(1);
+        CountDownLatch refreshed = new CountDownLatch(1);
+        CompletableFuture<SimpleCircuitBreaker<String, String>> payments = CompletableFuture.supplyAsync(
+                () -> registry.circuitBreaker("payments", CircuitBreakerRegistry.DEFAULT_CONFIG, config -> {
+                    resolved.countDown();
+                    await(refreshed);
+                    return new SimpleCircuitBreaker<>(remoteCall, config, fallbackMethod);
+                }));
+        await(resolved);
+
+        // the config is resolved but the breaker is not inserted yet, so the refresh cannot see it
+        properties.setProperty("circuitbreaker.instances.payments.failure-threshold", "5");
+        refresher.refresh();
+        assertNull(registry.find("payments"));
+        refreshed.countDown();
+
+        assertEquals(5, payments.get(5, TimeUnit.SECONDS).getFailureThreshold());
+    }
+
+    @Test
+    public void autoConfigurationAppliesPropertiesToTheRegistry() {
+        System.out.println("Test - Auto-configuration registers the refresher [Applies properties on creation]");
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(CircuitBreakerAutoConfiguration.class))
+                .withPropertyValues("circuitbreaker.instances.payments.failure-threshold=5")
+                .run(context -> {
+                    CircuitBreakerRegistry registry = context.getBean(CircuitBreakerRegistry.class);
+                    assertEquals(5, context.getBean(CircuitBreakerProperties.class).getInstances()
+                            .get("payments").getFailureThreshold());
+                    assertEquals(5, registry.circuitBreaker("payments", remoteCall, fallbackMethod)
+                            .getFailureThreshold());
+                });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void callFailedTimes(SimpleCircuitBreaker<String, String> circuitBreaker, int times) {
+        for (int i = 0; i < times; i++) {
+            try {
+                circuitBreaker.call(null);
+            } catch (Exception e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
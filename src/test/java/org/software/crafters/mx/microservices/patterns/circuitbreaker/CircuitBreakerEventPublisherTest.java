@@ -0,0 +1,163 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.CircuitBreakerEvent.Type;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerEventPublisherTest {
+
+    private final Function<String, String> remoteCall = name -> {
+        if (name == null) {
+            throw new RuntimeException("Name cannot be null");
+        }
+        return String.format("Hello %s!", name);
+    };
+
+    private final Function<String, String> fallbackMethod = name -> "Hello World!";
+
+    @Test
+    public void publishesOutcomesAndTransitionsInOrder() throws InterruptedException {
+        System.out.println("Test - Event publisher delivers outcomes and transitions in order");
+        try (CircuitBreakerEventPublisher publisher = new CircuitBreakerEventPublisher(16)) {
+            List<CircuitBreakerEvent> events = new CopyOnWriteArrayList<>();
+            CountDownLatch delivered = new CountDownLatch(4);
+            publisher.addListener(event -> {
+                events.add(event);
+                delivered.countDown();
+            });
+            SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                    CircuitBreakerConfig.builder().eventPublisher(publisher).build(), fallbackMethod);
+
+            circuitBreaker.call("Gerardo");
+            assertThrows(RuntimeException.class, () -> circuitBreaker.call(null));
+            circuitBreaker.call("Gerardo");
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(Type.SUCCESS, events.get(0).getType());
+            assertEquals(Type.FAILURE, events.get(1).getType());
+            assertEquals(Type.STATE_TRANSITION, events.get(2).getType());
+            assertEquals(State.CLOSED, events.get(2).getFromState());
+            assertEquals(State.OPEN, events.get(2).getToState());
+            assertEquals(Type.SHORT_CIRCUIT, events.get(3).getType());
+            assertSame(circuitBreaker, events.get(3).getCircuitBreaker());
+            assertEquals(0L, publisher.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void timestampsEventsWithTheBreakerTicker() throws InterruptedException {
+        System.out.println("Test - Event publisher timestamps events with the ticker of the breaker");
+        try (CircuitBreakerEventPublisher publisher = new CircuitBreakerEventPublisher(16)) {
+            List<CircuitBreakerEvent> events = new CopyOnWriteArrayList<>();
+            CountDownLatch delivered = new CountDownLatch(1);
+            publisher.addListener(event -> {
+                events.add(event);
+                delivered.countDown();
+            });
+            FakeTicker ticker = new FakeTicker();
+            SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                    CircuitBreakerConfig.builder().eventPublisher(publisher).ticker(ticker).build(), fallbackMethod);
+
+            ticker.advance(1L, TimeUnit.HOURS);
+            long start = System.currentTimeMillis();
+            circuitBreaker.call("Gerardo");
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertTrue(events.get(0).getTimestamp() >= start + TimeUnit.MINUTES.toMillis(59L));
+        }
+    }
+
+    @Test
+    public void timestampsEventsWhenTheyHappenNotWhenDelivered() throws InterruptedException {
+        System.out.println("Test - Event publisher keeps the time an event happened while the listener lags");
+        try (CircuitBreakerEventPublisher publisher = new CircuitBreakerEventPublisher(16)) {
+            List<CircuitBreakerEvent> events = new CopyOnWriteArrayList<>();
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch delivered = new CountDownLatch(2);
+            publisher.addListener(event -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add(event);
+                delivered.countDown();
+            });
+            FakeTicker ticker = new FakeTicker();
+            SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                    CircuitBreakerConfig.builder().eventPublisher(publisher).ticker(ticker).build(), fallbackMethod);
+
+            long start = System.currentTimeMillis();
+            circuitBreaker.call("Gerardo");
+            circuitBreaker.call("Gerardo");
+            ticker.advance(1L, TimeUnit.HOURS);
+            release.countDown();
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertTrue(events.get(1).getTimestamp() < start + TimeUnit.MINUTES.toMillis(1L));
+        }
+    }
+
+    @Test
+    public void dropsEventsWhenTheListenerFallsBehind() throws InterruptedException {
+        System.out.println("Test - Event publisher drops events instead of blocking callers");
+        try (CircuitBreakerEventPublisher publisher = new CircuitBreakerEventPublisher(4)) {
+            CountDownLatch release = new CountDownLatch(1);
+            List<CircuitBreakerEvent> events = new CopyOnWriteArrayList<>();
+            publisher.addListener(event -> {
+                events.add(event);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                    CircuitBreakerConfig.builder().eventPublisher(publisher).build(), fallbackMethod);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+            }
+            long elapsed = System.nanoTime() - start;
+            release.countDown();
+
+            assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1L));
+            assertTrue(publisher.getDroppedCount() >= 100 - 1 - publisher.getCapacity());
+            while (events.size() + publisher.getDroppedCount() < 100) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            assertEquals(100L, events.size() + publisher.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void survivesFailingListeners() throws InterruptedException {
+        System.out.println("Test - Event publisher survives failing listeners");
+        try (CircuitBreakerEventPublisher publisher = new CircuitBreakerEventPublisher(16)) {
+            CountDownLatch delivered = new CountDownLatch(2);
+            publisher.addListener(event -> {
+                throw new IllegalStateException("Broken listener");
+            });
+            publisher.addListener(event -> delivered.countDown());
+            SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                    CircuitBreakerConfig.builder().eventPublisher(publisher).build(), fallbackMethod);
+
+            circuitBreaker.call("Gerardo");
+            circuitBreaker.call("Ana");
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakerMetricsTest {
+
+    private final Function<String, String> remoteCall = name -> {
+        if (name == null) {
+            throw new RuntimeException("Name cannot be null");
+        }
+        return String.format("Hello %s!", name);
+    };
+
+    private final Function<String, String> fallbackMethod = name -> "Hello World!";
+
+    @Test
+    public void recordsOutcomesAndTransitions() {
+        System.out.println("Test - Metrics record call outcomes and state transitions");
+        FakeTicker ticker = new FakeTicker();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().retryTimeout(100L).metricsFactory(DefaultCircuitBreakerMetrics::new)
+                        .ticker(ticker).build(), fallbackMethod);
+        DefaultCircuitBreakerMetrics metrics = (DefaultCircuitBreakerMetrics) circuitBreaker.getMetrics();
+
+        circuitBreaker.call("Gerardo");
+        assertThrows(RuntimeException.class, () -> circuitBreaker.call(null));
+        circuitBreaker.call("Gerardo");
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        circuitBreaker.call(null);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        circuitBreaker.call("Gerardo");
+
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertEquals(2L, metrics.getSuccessfulCalls());
+        assertEquals(2L, metrics.getFailedCalls());
+        assertEquals(1L, metrics.getShortCircuitedCalls());
+        assertEquals(4L, metrics.getLatencyHistogram().getTotalCount());
+        assertEquals(2L, metrics.getStateTransitions(State.CLOSED, State.OPEN) + metrics.getStateTransitions(
+                State.HALF_OPEN, State.OPEN));
+        assertEquals(2L, metrics.getStateTransitions(State.OPEN, State.HALF_OPEN));
+        assertEquals(1L, metrics.getStateTransitions(State.HALF_OPEN, State.CLOSED));
+    }
+
+    @Test
+    public void recordsFallbackFailures() {
+        System.out.println("Test - Metrics record fallback failures [OPEN]");
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().metricsFactory(DefaultCircuitBreakerMetrics::new).build(),
+                name -> {
+                    throw new IllegalStateException("No fallback");
+                });
+        DefaultCircuitBreakerMetrics metrics = (DefaultCircuitBreakerMetrics) circuitBreaker.getMetrics();
+
+        assertThrows(RuntimeException.class, () -> circuitBreaker.call(null));
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.call("Gerardo"));
+
+        assertEquals(1L, metrics.getShortCircuitedCalls());
+        assertEquals(1L, metrics.getFallbackFailures());
+    }
+
+    @Test
+    public void usesNoopMetricsByDefault() {
+        System.out.println("Test - Metrics are disabled by default");
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, fallbackMethod);
+
+        assertSame(CircuitBreakerMetrics.NOOP, circuitBreaker.getMetrics());
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerMetricsBinder("greeting", circuitBreaker));
+    }
+
+    @Test
+    public void bindsToMicrometer() {
+        System.out.println("Test - Metrics bind to a Micrometer registry");
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().metricsFactory(DefaultCircuitBreakerMetrics::new).build(),
+                fallbackMethod);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new CircuitBreakerMetricsBinder("greeting", circuitBreaker).bindTo(registry);
+
+        circuitBreaker.call("Gerardo");
+        assertThrows(RuntimeException.class, () -> circuitBreaker.call(null));
+        circuitBreaker.call("Gerardo");
+
+        assertEquals(1.0d, registry.get("circuitbreaker.calls").tag("name", "greeting").tag("kind", "successful")
+                .functionCounter().count());
+        assertEquals(1.0d, registry.get("circuitbreaker.calls").tag("kind", "short_circuited")
+                .functionCounter().count());
+        assertEquals(1.0d, registry.get("circuitbreaker.state").tag("state", "open").gauge().value());
+        assertEquals(0.0d, registry.get("circuitbreaker.state").tag("state", "closed").gauge().value());
+        assertEquals(1.0d, registry.get("circuitbreaker.state.transitions").tag("from", "closed").tag("to", "open")
+                .functionCounter().count());
+        assertEquals(4, registry.get("circuitbreaker.calls.latency").timeGauges().size());
+    }
+}
@@ -0,0 +1,170 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CircuitBreakerRegistryTest {
+
+    private final Function<String, String> remoteCall = name -> {
+        if (name == null) {
+            throw new RuntimeException("Name cannot be null");
+        }
+        return String.format("Hello %s!", name);
+    };
+
+    private final Function<String, String> fallbackMethod = name -> "Hello World!";
+
+    @Test
+    public void createsOneBreakerPerKey() throws Exception {
+        System.out.println("Test - Registry lazily creates a single breaker per key");
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.builder()
+                .addConfig("tolerant", CircuitBreakerConfig.builder().failureThreshold(3).build())
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<SimpleCircuitBreaker<String, String>> first = executor.submit(
+                    () -> registry.circuitBreaker("greeting", "tolerant", remoteCall, fallbackMethod));
+            Future<SimpleCircuitBreaker<String, String>> second = executor.submit(
+                    () -> registry.circuitBreaker("greeting", "tolerant", remoteCall, fallbackMethod));
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(3, registry.find("greeting").getFailureThreshold());
+        assertEquals(1, registry.circuitBreaker("farewell", remoteCall, fallbackMethod).getFailureThreshold());
+        assertEquals(2, registry.size());
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.circuitBreaker("unknown", "missing", remoteCall, fallbackMethod));
+    }
+
+    @Test
+    public void laterLookupsGetTheBreakerOfTheFirstCaller() {
+        System.out.println("Test - Registry keeps the functions and config of the first caller of a key");
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.builder()
+                .addConfig("tolerant", CircuitBreakerConfig.builder().failureThreshold(3).build())
+                .build();
+        SimpleCircuitBreaker<String, String> first = registry.circuitBreaker("greeting", remoteCall, fallbackMethod);
+
+        SimpleCircuitBreaker<String, String> second = registry.circuitBreaker("greeting", "tolerant",
+                name -> "Bye " + name + "!", name -> "Bye!");
+        assertSame(first, second);
+        assertEquals("Hello Gerardo!", second.call("Gerardo"));
+        assertEquals(CircuitBreakerConfig.ofDefaults().getFailureThreshold(), second.getFailureThreshold());
+    }
+
+    @Test
+    public void lookupOfAnotherBreakerTypeIsRejected() {
+        System.out.println("Test - Registry rejects a lookup expecting another type of breaker for a key");
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        registry.circuitBreaker("greeting", remoteCall, fallbackMethod);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.asyncCircuitBreaker("greeting",
+                CircuitBreakerRegistry.DEFAULT_CONFIG, name -> CompletableFuture.completedFuture(name),
+                name -> CompletableFuture.completedFuture("Hello World!")));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedClosedBreakersBeyondMaximumSize() {
+        System.out.println("Test - Registry evicts least recently used CLOSED breakers beyond its maximum size");
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.builder().maximumSize(10).build();
+        SimpleCircuitBreaker<String, String> open = registry.circuitBreaker("open", remoteCall, fallbackMethod);
+        assertThrows(RuntimeException.class, () -> open.call(null));
+
+        for (int i = 0; i < 100; i++) {
+            registry.circuitBreaker("endpoint-" + i, remoteCall, fallbackMethod);
+        }
+
+        assertEquals(true, registry.size() <= 10);
+        assertSame(open, registry.find("open"));
+        assertNotNull(registry.find("endpoint-99"));
+    }
+
+    @Test
+    public void evictsIdleClosedBreakers() {
+        System.out.println("Test - Registry evicts idle CLOSED breakers");
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.builder().idleTimeout(100L).ticker(ticker).build();
+        SimpleCircuitBreaker<String, String> open = registry.circuitBreaker("open", remoteCall, fallbackMethod);
+        assertThrows(RuntimeException.class, () -> open.call(null));
+        registry.circuitBreaker("idle", remoteCall, fallbackMethod);
+
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        registry.cleanUp();
+
+        assertNull(registry.find("idle"));
+        assertSame(open, registry.find("open"));
+    }
+
+    @Test
+    public void sweepDoesNotMoveExpiredOpenBreakersToHalfOpen() {
+        System.out.println("Test - Registry sweep leaves an OPEN breaker past its retry timeout OPEN");
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.builder()
+                .defaultConfig(CircuitBreakerConfig.builder().retryTimeout(100L).ticker(ticker).build())
+                .idleTimeout(100L)
+                .ticker(ticker)
+                .build();
+        SimpleCircuitBreaker<String, String> open = registry.circuitBreaker("open", remoteCall, fallbackMethod);
+        assertThrows(RuntimeException.class, () -> open.call(null));
+
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        registry.cleanUp();
+
+        assertSame(open, registry.find("open"));
+        assertEquals(State.OPEN, open.stateMachine.peekState());
+    }
+
+    @Test
+    public void throttlesSizeSweepsWhileBreakersCannotBeEvicted() {
+        System.out.println("Test - Registry waits for another tenth of growth after a sweep that could not shrink it");
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.builder().maximumSize(10).build();
+        for (int i = 0; i < 20; i++) {
+            SimpleCircuitBreaker<String, String> open = registry.circuitBreaker("open-" + i, remoteCall, fallbackMethod);
+            assertThrows(RuntimeException.class, () -> open.call(null));
+        }
+
+        registry.circuitBreaker("first", remoteCall, fallbackMethod);
+        registry.circuitBreaker("second", remoteCall, fallbackMethod);
+        assertEquals(22, registry.size());
+        assertNotNull(registry.find("first"));
+
+        registry.circuitBreaker("third", remoteCall, fallbackMethod);
+        registry.circuitBreaker("fourth", remoteCall, fallbackMethod);
+        assertNull(registry.find("first"));
+        assertNull(registry.find("third"));
+        assertNotNull(registry.find("fourth"));
+        assertEquals(21, registry.size());
+    }
+
+    @Test
+    public void snapshotsStates() {
+        System.out.println("Test - Registry snapshots the state of every breaker");
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        SimpleCircuitBreaker<String, String> failing = registry.circuitBreaker("failing", remoteCall, fallbackMethod);
+        registry.circuitBreaker("healthy", remoteCall, fallbackMethod).call("Gerardo");
+        assertThrows(RuntimeException.class, () -> failing.call(null));
+
+        Map<String, State> states = registry.getStates();
+
+        assertEquals(2, states.size());
+        assertEquals(State.OPEN, states.get("failing"));
+        assertEquals(State.CLOSED, states.get("healthy"));
+    }
+}
@@ -0,0 +1,66 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CountBasedSlidingWindowTest {
+
+    @Test
+    public void recordOutcomesUnderWindowSize() {
+        System.out.println("Test - Record outcomes under the window size");
+        CountBasedSlidingWindow slidingWindow = new CountBasedSlidingWindow(10);
+
+        slidingWindow.record(true, false, 0L);
+        slidingWindow.record(false, false, 0L);
+        slidingWindow.record(false, false, 0L);
+        slidingWindow.record(true, false, 0L);
+        assertEquals(4, slidingWindow.getNumberOfCalls(0L));
+        assertEquals(2, slidingWindow.getNumberOfFailedCalls(0L));
+        assertEquals(50.0f, slidingWindow.getFailureRate(0L));
+    }
+
+    @Test
+    public void oldestOutcomesAreEvicted() {
+        System.out.println("Test - Oldest outcomes are evicted when the window is full");
+        CountBasedSlidingWindow slidingWindow = new CountBasedSlidingWindow(70);
+
+        for (int i = 0; i < 70; i++) {
+            slidingWindow.record(true, false, 0L);
+        }
+        for (int i = 0; i < 35; i++) {
+            slidingWindow.record(false, false, 0L);
+        }
+        assertEquals(70, slidingWindow.getNumberOfCalls(0L));
+        assertEquals(35, slidingWindow.getNumberOfFailedCalls(0L));
+        assertEquals(50.0f, slidingWindow.getFailureRate(0L));
+    }
+
+    @Test
+    public void recordSlowOutcomes() {
+        System.out.println("Test - Record slow outcomes");
+        CountBasedSlidingWindow slidingWindow = new CountBasedSlidingWindow(4);
+
+        slidingWindow.record(false, true, 0L);
+        slidingWindow.record(true, true, 0L);
+        slidingWindow.record(false, false, 0L);
+        slidingWindow.record(false, false, 0L);
+        assertEquals(2, slidingWindow.getNumberOfSlowCalls(0L));
+        assertEquals(50.0f, slidingWindow.getSlowCallRate(0L));
+        slidingWindow.record(false, false, 0L);
+        assertEquals(1, slidingWindow.getNumberOfSlowCalls(0L));
+    }
+
+    @Test
+    public void resetClearsTheWindow() {
+        System.out.println("Test - Reset clears the window");
+        CountBasedSlidingWindow slidingWindow = new CountBasedSlidingWindow(10);
+
+        slidingWindow.record(true, false, 0L);
+        slidingWindow.record(true, false, 0L);
+        slidingWindow.reset();
+        assertEquals(0, slidingWindow.getNumberOfCalls(0L));
+        assertEquals(0, slidingWindow.getNumberOfFailedCalls(0L));
+        assertEquals(0.0f, slidingWindow.getFailureRate(0L));
+    }
+}
@@ -0,0 +1,52 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExceptionClassifierTest {
+
+    @Test
+    public void noClassificationRecordsEveryException() {
+        System.out.println("Classifier Test - Without classification every exception is a failure");
+        assertNull(ExceptionClassifier.of(CircuitBreakerConfig.ofDefaults()));
+    }
+
+    @Test
+    public void ignoredTypesTakePrecedenceOverRecordedTypes() {
+        System.out.println("Classifier Test - Ignored types take precedence over recorded types, subclasses included");
+        ExceptionClassifier classifier = ExceptionClassifier.of(CircuitBreakerConfig.builder()
+                .recordExceptions(RuntimeException.class)
+                .ignoreExceptions(IllegalArgumentException.class)
+                .build());
+
+        assertTrue(classifier.isFailure(new IllegalStateException()));
+        assertTrue(classifier.isFailure(new CompletionException(null)));
+        assertFalse(classifier.isFailure(new IllegalArgumentException()));
+        assertFalse(classifier.isFailure(new NumberFormatException()));
+    }
+
+    @Test
+    public void unlistedTypesAreIgnoredWhenRecordedTypesAreSet() {
+        System.out.println("Classifier Test - Types outside the recorded ones are ignored");
+        ExceptionClassifier classifier = ExceptionClassifier.of(CircuitBreakerConfig.builder()
+                .recordExceptions(UncheckedIOException.class, CallTimeoutException.class)
+                .build());
+
+        assertTrue(classifier.isFailure(new CallTimeoutException(50L)));
+        assertFalse(classifier.isFailure(new IllegalStateException()));
+    }
+
+    @Test
+    public void nullExceptionTypeIsRejected() {
+        System.out.println("Classifier Test - Null exception types are rejected");
+        assertThrows(IllegalArgumentException.class,
+                () -> CircuitBreakerConfig.builder().ignoreExceptions(IllegalStateException.class, null).build());
+    }
+}
@@ -0,0 +1,18 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class FakeTicker implements Ticker {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+        return nanos.get();
+    }
+
+    void advance(long duration, TimeUnit unit) {
+        nanos.addAndGet(unit.toNanos(duration));
+    }
+}
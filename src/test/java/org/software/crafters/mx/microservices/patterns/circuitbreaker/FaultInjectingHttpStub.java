@@ -0,0 +1,171 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Embedded stand-in for the httpbin.org endpoints the integration tests use, bound to the loopback interface:
+ * GET /get answers 200 with a small JSON body and GET /status/{code} answers that code. Every request first
+ * waits a delay drawn from the latency distribution, then fails with 503 inside an outage window or with
+ * errorStatus at errorRate, so a test can script how the backend degrades and recovers while load runs.
+ */
+final class FaultInjectingHttpStub implements AutoCloseable {
+
+    private static final AtomicInteger STUB_NUMBER = new AtomicInteger();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<long[]> outages;
+    private final LongAdder requestCount;
+    private volatile LatencyDistribution latency;
+    private volatile double errorRate;
+    private volatile int errorStatus;
+
+    private FaultInjectingHttpStub(HttpServer server) {
+        String namePrefix = "http-stub-" + STUB_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.server = server;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.outages = new CopyOnWriteArrayList<>();
+        this.requestCount = new LongAdder();
+        this.latency = LatencyDistribution.none();
+        this.errorStatus = 500;
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    static FaultInjectingHttpStub start() throws IOException {
+        // without TCP_NODELAY the separate header and body writes hit delayed ACKs, adding ~40 ms per call
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        FaultInjectingHttpStub stub = new FaultInjectingHttpStub(server);
+        server.start();
+        return stub;
+    }
+
+    String url(String path) {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + path;
+    }
+
+    void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    void setErrorRate(double errorRate, int errorStatus) {
+        if (errorRate < 0.0d || errorRate > 1.0d) {
+            throw new IllegalArgumentException("errorRate must be in the range [0, 1]");
+        }
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    void scheduleOutage(long delayMillis, long durationMillis) {
+        long from = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        outages.add(new long[]{from, from + TimeUnit.MILLISECONDS.toNanos(durationMillis)});
+    }
+
+    void clearFaults() {
+        latency = LatencyDistribution.none();
+        errorRate = 0.0d;
+        outages.clear();
+    }
+
+    long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.increment();
+        try {
+            long delay = latency.nextMillis();
+            if (delay > 0L) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (isInOutage()) {
+                respond(exchange, 503, "{\"error\": \"outage\"}");
+            } else if (errorRate > 0.0d && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                respond(exchange, errorStatus, "{\"error\": \"injected\"}");
+            } else if (path.equals("/get")) {
+                respond(exchange, 200, "{\"url\": \"" + url(path) + "\"}");
+            } else if (path.startsWith("/status/")) {
+                respond(exchange, Integer.parseInt(path.substring("/status/".length())), "");
+            } else {
+                respond(exchange, 404, "");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            respond(exchange, 400, "");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isInOutage() {
+        long now = System.nanoTime();
+        for (long[] outage : outages) {
+            if (now - outage[0] >= 0L && now - outage[1] < 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    interface LatencyDistribution {
+
+        long nextMillis();
+
+        static LatencyDistribution none() {
+            return () -> 0L;
+        }
+
+        static LatencyDistribution fixed(long millis) {
+            return () -> millis;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1L);
+        }
+
+        static LatencyDistribution exponential(long meanMillis) {
+            return () -> Math.round(-meanMillis * Math.log(1.0d - ThreadLocalRandom.current().nextDouble()));
+        }
+    }
+}
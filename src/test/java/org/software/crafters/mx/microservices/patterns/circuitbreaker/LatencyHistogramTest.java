@@ -0,0 +1,54 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguousAndBoundTheRelativeError() {
+        System.out.println("Test - Latency histogram buckets are contiguous and bound the relative error");
+        for (long value = 0L; value < 1_000_000L; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertTrue(value <= highest);
+            assertTrue(bucket == 0 || LatencyHistogram.highestValueOf(bucket - 1) < value);
+            assertTrue(highest - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void reportsPercentiles() {
+        System.out.println("Test - Latency histogram reports percentiles");
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getValueAtPercentile(50.0d));
+
+        for (long micros = 1L; micros <= 1000L; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        assertEquals(1000L, histogram.getTotalCount());
+        assertWithinRelativeError(500_000L, histogram.getValueAtPercentile(50.0d));
+        assertWithinRelativeError(990_000L, histogram.getValueAtPercentile(99.0d));
+        assertWithinRelativeError(1_000_000L, histogram.getValueAtPercentile(100.0d));
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        System.out.println("Test - Latency histogram clamps out of range values");
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-1L);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2L, histogram.getTotalCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50.0d));
+        assertTrue(histogram.getValueAtPercentile(100.0d) >= 1L << 40);
+    }
+
+    private static void assertWithinRelativeError(long expected, long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / 16, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,196 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/*
+ * Closed-loop load generator: each of the concurrency workers issues its next call only after the previous
+ * one returned, paced so that together they aim at targetRps. When calls get slower than the pacing allows
+ * the workers fall behind instead of bursting, so the achieved throughput drops like a real caller's would.
+ * The breaker state is sampled after every call to time when the circuit trips and recovers.
+ */
+final class LoadGenerator {
+
+    private static final AtomicInteger GENERATOR_NUMBER = new AtomicInteger();
+
+    private final Supplier<?> call;
+    private final AbstractCircuitBreaker circuitBreaker;
+    private final int concurrency;
+    private final double targetRps;
+    private final long duration;
+
+    LoadGenerator(Supplier<?> call, AbstractCircuitBreaker circuitBreaker, int concurrency, double targetRps,
+                  long duration) {
+        if (concurrency < 1 || targetRps <= 0.0d || duration < 1L) {
+            throw new IllegalArgumentException("concurrency, targetRps and duration must be greater than 0");
+        }
+        this.call = call;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrency = concurrency;
+        this.targetRps = targetRps;
+        this.duration = duration;
+    }
+
+    LoadReport run() throws Exception {
+        String namePrefix = "load-generator-" + GENERATOR_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder successes = new LongAdder();
+        LongAdder errors = new LongAdder();
+        Queue<StateChange> stateChanges = new ConcurrentLinkedQueue<>();
+        AtomicReference<State> lastState = new AtomicReference<>(circuitBreaker.getState());
+        long interval = (long) (TimeUnit.SECONDS.toNanos(concurrency) / targetRps);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(duration);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                long offset = interval * i / concurrency;
+                futures.add(workers.submit(() -> {
+                    long next = start + offset;
+                    while (next - end < 0L) {
+                        long wait = next - System.nanoTime();
+                        if (wait > 0L) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        long callStart = System.nanoTime();
+                        try {
+                            call.get();
+                            successes.increment();
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                        long callEnd = System.nanoTime();
+                        latencies.record(callEnd - callStart);
+                        State state = circuitBreaker.getState();
+                        if (lastState.getAndSet(state) != state) {
+                            stateChanges.add(new StateChange(TimeUnit.NANOSECONDS.toMillis(callEnd - start), state));
+                        }
+                        next = Math.max(next + interval, callEnd);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        List<StateChange> sortedStateChanges = new ArrayList<>(stateChanges);
+        sortedStateChanges.sort(Comparator.comparingLong(StateChange::getAt));
+        return new LoadReport(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), successes.sum(),
+                errors.sum(), latencies, sortedStateChanges);
+    }
+
+    static final class StateChange {
+        private final long at;
+        private final State state;
+
+        StateChange(long at, State state) {
+            this.at = at;
+            this.state = state;
+        }
+
+        long getAt() {
+            return at;
+        }
+
+        State getState() {
+            return state;
+        }
+    }
+
+    static final class LoadReport {
+        private final long elapsed;
+        private final long successes;
+        private final long errors;
+        private final LatencyHistogram latencies;
+        private final List<StateChange> stateChanges;
+
+        LoadReport(long elapsed, long successes, long errors, LatencyHistogram latencies,
+                   List<StateChange> stateChanges) {
+            this.elapsed = elapsed;
+            this.successes = successes;
+            this.errors = errors;
+            this.latencies = latencies;
+            this.stateChanges = stateChanges;
+        }
+
+        long getCalls() {
+            return successes + errors;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        double getThroughput() {
+            return getCalls() * 1000.0d / Math.max(1L, elapsed);
+        }
+
+        long getLatencyAtPercentile(double percentile, TimeUnit unit) {
+            return unit.convert(latencies.getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+        }
+
+        List<StateChange> getStateChanges() {
+            return stateChanges;
+        }
+
+        long getTimeToTrip(long faultStartedAt) {
+            return firstChangeTo(State.OPEN, faultStartedAt);
+        }
+
+        long getTimeToRecover(long faultEndedAt) {
+            return firstChangeTo(State.CLOSED, faultEndedAt);
+        }
+
+        private long firstChangeTo(State state, long since) {
+            for (StateChange stateChange : stateChanges) {
+                if (stateChange.getState() == state && stateChange.getAt() >= since) {
+                    return stateChange.getAt() - since;
+                }
+            }
+            return -1L;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d calls in %d ms (%.1f/s), %d errors, latency p50=%d us p99=%d us p99.9=%d us, "
+                            + "state changes at %s", getCalls(), elapsed, getThroughput(), errors,
+                    getLatencyAtPercentile(50.0d, TimeUnit.MICROSECONDS),
+                    getLatencyAtPercentile(99.0d, TimeUnit.MICROSECONDS),
+                    getLatencyAtPercentile(99.9d, TimeUnit.MICROSECONDS), describeStateChanges());
+        }
+
+        private String describeStateChanges() {
+            StringBuilder description = new StringBuilder("[");
+            for (StateChange stateChange : stateChanges) {
+                if (description.length() > 1) {
+                    description.append(", ");
+                }
+                description.append(stateChange.getAt()).append(" ms ").append(stateChange.getState());
+            }
+            return description.append(']').toString();
+        }
+    }
+}
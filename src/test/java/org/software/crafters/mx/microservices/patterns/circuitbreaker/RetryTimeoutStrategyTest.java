@@ -0,0 +1,96 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryTimeoutStrategyTest {
+
+    private final Function<String, String> remoteCall = name -> {
+        if (name == null) {
+            throw new RuntimeException("Name cannot be null");
+        }
+        return String.format("Hello %s!", name);
+    };
+
+    private final Function<String, String> fallbackMethod = name -> "Hello World!";
+
+    @Test
+    public void exponentialGrowsUpToItsCap() {
+        System.out.println("Test - Exponential retry timeout grows up to its cap");
+        RetryTimeoutStrategy strategy = RetryTimeoutStrategy.exponential(100L, 2.0d, 1000L);
+
+        assertEquals(100L, strategy.retryTimeout(0, 0L));
+        assertEquals(200L, strategy.retryTimeout(1, 100L));
+        assertEquals(800L, strategy.retryTimeout(3, 400L));
+        assertEquals(1000L, strategy.retryTimeout(4, 800L));
+        assertEquals(1000L, strategy.retryTimeout(Integer.MAX_VALUE, 1000L));
+    }
+
+    @Test
+    public void jitterStaysWithinItsBounds() {
+        System.out.println("Test - Jittered retry timeouts stay within their bounds");
+        RetryTimeoutStrategy fullJitter = RetryTimeoutStrategy.exponentialWithFullJitter(100L, 2.0d, 1000L);
+        RetryTimeoutStrategy decorrelatedJitter = RetryTimeoutStrategy.decorrelatedJitter(100L, 1000L);
+
+        long previous = 0L;
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            long fullJitterTimeout = fullJitter.retryTimeout(attempt % 8, 0L);
+            assertTrue(fullJitterTimeout >= 0L && fullJitterTimeout <= Math.min(1000L, 100L << (attempt % 8)));
+            long decorrelatedTimeout = decorrelatedJitter.retryTimeout(attempt, previous);
+            assertTrue(decorrelatedTimeout >= 100L && decorrelatedTimeout <= Math.min(1000L, Math.max(100L, previous) * 3));
+            previous = decorrelatedTimeout;
+        }
+        assertThrows(IllegalArgumentException.class, () -> RetryTimeoutStrategy.exponential(100L, 0.5d, 1000L));
+        assertThrows(IllegalArgumentException.class, () -> RetryTimeoutStrategy.decorrelatedJitter(100L, 10L));
+    }
+
+    @Test
+    public void hugeCapsDoNotOverflow() {
+        System.out.println("Test - Retry timeouts with a huge cap saturate instead of overflowing");
+        RetryTimeoutStrategy exponential = RetryTimeoutStrategy.exponential(100L, 2.0d, Long.MAX_VALUE - 1);
+        RetryTimeoutStrategy fullJitter = RetryTimeoutStrategy.exponentialWithFullJitter(100L, 2.0d, Long.MAX_VALUE);
+        RetryTimeoutStrategy decorrelatedJitter = RetryTimeoutStrategy.decorrelatedJitter(100L, Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE - 1, exponential.retryTimeout(Integer.MAX_VALUE, 0L));
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            assertTrue(fullJitter.retryTimeout(Integer.MAX_VALUE - attempt, 0L) >= 0L);
+            assertTrue(decorrelatedJitter.retryTimeout(attempt, Long.MAX_VALUE - attempt) >= 100L);
+            assertTrue(decorrelatedJitter.retryTimeout(attempt, Long.MAX_VALUE / 3L + attempt) >= 100L);
+        }
+        assertEquals(Long.MAX_VALUE, RetryTimeoutStrategy.decorrelatedJitter(Long.MAX_VALUE, Long.MAX_VALUE)
+                .retryTimeout(1, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void backsOffAfterEachFailedHalfOpenRound() {
+        System.out.println("Test - Retry timeout backs off after each failed half open round [OPEN]");
+        FakeTicker ticker = new FakeTicker();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder()
+                        .retryTimeoutStrategy(RetryTimeoutStrategy.exponential(100L, 3.0d, 10000L))
+                        .ticker(ticker)
+                        .build(), fallbackMethod);
+        assertThrows(RuntimeException.class, () -> circuitBreaker.call(null));
+
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello World!", circuitBreaker.call(null));
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        ticker.advance(200L, TimeUnit.MILLISECONDS);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+
+        assertThrows(RuntimeException.class, () -> circuitBreaker.call(null));
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,293 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimpleCircuitBreakerConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 5_000;
+
+    @Test
+    public void concurrentFailuresAreNeverLost() throws Exception {
+        System.out.println("Stress Test - Concurrent failures are never lost [Closed state]");
+        int totalCalls = THREADS * CALLS_PER_THREAD;
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(failingRemoteCall(null),
+                totalCalls + 1, arg -> "Hello World!");
+
+        runConcurrently(() -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                callIgnoringFailure(circuitBreaker);
+            }
+        });
+        assertEquals(totalCalls, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        callIgnoringFailure(circuitBreaker);
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void everyRemoteFailureIsCountedAcrossTheOpenTransition() throws Exception {
+        System.out.println("Stress Test - Every remote failure is counted across the transition [Goes to Open state]");
+        AtomicInteger remoteInvocations = new AtomicInteger();
+        int failureThreshold = 1_000;
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(
+                failingRemoteCall(remoteInvocations), failureThreshold, 60_000L, arg -> "Hello World!");
+
+        runConcurrently(() -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                callIgnoringFailure(circuitBreaker);
+            }
+        });
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(remoteInvocations.get(), circuitBreaker.getFailureCount());
+        assertTrue(remoteInvocations.get() >= failureThreshold);
+    }
+
+    @Test
+    public void concurrentProbesInHalfOpenStateCloseTheCircuit() throws Exception {
+        System.out.println("Stress Test - Concurrent successful probes [Goes to Closed state]");
+        AtomicInteger failing = new AtomicInteger(1);
+        Function<String, String> remoteCall = name -> {
+            if (failing.get() == 1) {
+                throw new IllegalStateException("Remote service unavailable");
+            }
+            return "Hello " + name + "!";
+        };
+        FakeTicker ticker = new FakeTicker();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(50L).ticker(ticker).build(),
+                arg -> "Hello World!");
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(100L, TimeUnit.MILLISECONDS);
+        failing.set(0);
+        runConcurrently(() -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                String result = circuitBreaker.call("Gerardo");
+                assertTrue("Hello Gerardo!".equals(result) || "Hello World!".equals(result));
+            }
+        });
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureCount());
+        assertEquals(0L, circuitBreaker.getLastFailureTime());
+    }
+
+    @Test
+    public void concurrentFailedProbesInHalfOpenStateAreAllCounted() throws Exception {
+        System.out.println("Stress Test - Concurrent failed probes are all counted [Goes to Open state again]");
+        AtomicInteger remoteInvocations = new AtomicInteger();
+        int failureThreshold = 3;
+        FakeTicker ticker = new FakeTicker();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(
+                failingRemoteCall(remoteInvocations), CircuitBreakerConfig.builder().failureThreshold(failureThreshold)
+                .retryTimeout(50L).ticker(ticker).build(), arg -> "Hello World!");
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(100L, TimeUnit.MILLISECONDS);
+        runConcurrently(() -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                callIgnoringFailure(circuitBreaker);
+            }
+        });
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(remoteInvocations.get(), circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void onlyPermittedProbesReachTheRemoteServiceInHalfOpenState() throws Exception {
+        System.out.println("Stress Test - Only permitted probes reach the remote service [Half-Open state]");
+        int permittedCalls = 4;
+        AtomicInteger probes = new AtomicInteger();
+        AtomicInteger failing = new AtomicInteger(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FakeTicker ticker = new FakeTicker();
+        Function<String, String> remoteCall = name -> {
+            if (failing.get() == 1) {
+                throw new IllegalStateException("Remote service unavailable");
+            }
+            probes.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Hello " + name + "!";
+        };
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureThreshold(1)
+                .retryTimeout(50L)
+                .permittedNumberOfCallsInHalfOpenState(permittedCalls)
+                .ticker(ticker)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                arg -> "Hello World!");
+
+        callIgnoringFailure(circuitBreaker);
+        ticker.advance(100L, TimeUnit.MILLISECONDS);
+        failing.set(0);
+        ExecutorService probeExecutor = Executors.newFixedThreadPool(permittedCalls);
+        try {
+            for (int i = 0; i < permittedCalls; i++) {
+                probeExecutor.submit(() -> circuitBreaker.call("Gerardo"));
+            }
+            while (probes.get() < permittedCalls) {
+                Thread.onSpinWait();
+            }
+            runConcurrently(() -> {
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    assertEquals("Hello World!", circuitBreaker.call("Gerardo"));
+                }
+            });
+            assertEquals(permittedCalls, probes.get());
+        } finally {
+            release.countDown();
+            probeExecutor.shutdown();
+            probeExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void concurrentEqualCallsShareOneRemoteInvocation() throws Exception {
+        System.out.println("Stress Test - Concurrent equal calls share one remote invocation [Request coalescing]");
+        AtomicInteger remoteInvocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> remoteCall = name -> {
+            remoteInvocations.incrementAndGet();
+            awaitQuietly(release);
+            return "Hello " + name + "!";
+        };
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().requestCoalescing(true).build(), arg -> "Hello World!");
+
+        List<Future<String>> results = callConcurrentlyOnce(circuitBreaker, release);
+        for (Future<String> result : results) {
+            assertEquals("Hello Gerardo!", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, remoteInvocations.get());
+        assertEquals(THREADS - 1, circuitBreaker.getCoalescedCount());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(2, remoteInvocations.get());
+    }
+
+    @Test
+    public void coalescedFailureIsSharedAndCountedOnce() throws Exception {
+        System.out.println("Stress Test - Coalesced failure is shared and counted once [Request coalescing]");
+        AtomicInteger remoteInvocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> remoteCall = name -> {
+            remoteInvocations.incrementAndGet();
+            awaitQuietly(release);
+            throw new IllegalStateException("Remote service unavailable");
+        };
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().failureThreshold(2).requestCoalescing(true).build(),
+                arg -> "Hello World!");
+
+        List<Future<String>> results = callConcurrentlyOnce(circuitBreaker, release);
+        for (Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, remoteInvocations.get());
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private static List<Future<String>> callConcurrentlyOnce(SimpleCircuitBreaker<String, String> circuitBreaker,
+                                                            CountDownLatch release) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> circuitBreaker.call("Gerardo")));
+            }
+            while (circuitBreaker.getCoalescedCount() < THREADS - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<String> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // inspected by the caller
+                }
+            }
+            return futures;
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Function<String, String> failingRemoteCall(AtomicInteger remoteInvocations) {
+        return name -> {
+            if (remoteInvocations != null) {
+                remoteInvocations.incrementAndGet();
+            }
+            throw new IllegalStateException("Remote service unavailable");
+        };
+    }
+
+    private static void callIgnoringFailure(SimpleCircuitBreaker<String, String> circuitBreaker) {
+        try {
+            circuitBreaker.call("Gerardo");
+        } catch (RuntimeException e) {
+            // expected while the circuit is closed
+        }
+    }
+
+    private static void callFailedUntilReachesThreshold(SimpleCircuitBreaker<String, String> circuitBreaker) {
+        while (circuitBreaker.getFailureCount() < circuitBreaker.getFailureThreshold()) {
+            callIgnoringFailure(circuitBreaker);
+        }
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            startGate.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
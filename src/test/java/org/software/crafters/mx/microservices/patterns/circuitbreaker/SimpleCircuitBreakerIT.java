@@ -1,11 +1,16 @@
 package org.software.crafters.mx.microservices.patterns.circuitbreaker;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.FaultInjectingHttpStub.LatencyDistribution;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.LoadGenerator.LoadReport;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -14,17 +19,22 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SimpleCircuitBreakerIT {
 
+    private FaultInjectingHttpStub stub;
     private RestTemplate restTemplate;
     private Function<String, String> remoteCall;
     private Function<String, String> fallbackMethod;
 
     public SimpleCircuitBreakerIT() {
         RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder();
-        restTemplate = restTemplateBuilder.build();
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(1L))
+                .setReadTimeout(Duration.ofSeconds(2L))
+                .build();
     }
 
     @BeforeEach
-    public void setup() {
+    public void setup() throws Exception {
+        stub = FaultInjectingHttpStub.start();
         remoteCall = url -> {
             ResponseEntity<String> responseEntity = restTemplate.getForEntity(url, String.class);
             return responseEntity.getBody();
@@ -35,12 +45,17 @@ public class SimpleCircuitBreakerIT {
         };
     }
 
+    @AfterEach
+    public void tearDown() {
+        stub.close();
+    }
+
     @Test
     public void callSuccessfully() {
         System.out.println("Integration Test - Call successfully [Closed state]");
         SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, fallbackMethod);
-        HttpbinService service = new HttpbinService(circuitBreaker);
-        assertTrue(service.invokeGetMethod("/get").contains("https://httpbin.org/get"));
+        BackendService service = new BackendService(circuitBreaker);
+        assertTrue(service.invokeGetMethod("/get").contains(stub.url("/get")));
         assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
     }
 
@@ -50,7 +65,7 @@ public class SimpleCircuitBreakerIT {
         int failureThreshold = 3;
         SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
                 fallbackMethod);
-        HttpbinService service = new HttpbinService(circuitBreaker);
+        BackendService service = new BackendService(circuitBreaker);
 
         callFailedUntilBeingUnderThreshold(service);
         assertEquals(circuitBreaker.getFailureThreshold() - 1, circuitBreaker.getFailureCount());
@@ -63,7 +78,7 @@ public class SimpleCircuitBreakerIT {
         int failureThreshold = 3;
         SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
                 fallbackMethod);
-        HttpbinService service = new HttpbinService(circuitBreaker);
+        BackendService service = new BackendService(circuitBreaker);
 
         callFailedUntilReachesThreshold(service);
         assertEquals(circuitBreaker.getFailureThreshold(), circuitBreaker.getFailureCount());
@@ -77,7 +92,7 @@ public class SimpleCircuitBreakerIT {
         long retryTimeout = 5000L;
         SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
                 retryTimeout, fallbackMethod);
-        HttpbinService service = new HttpbinService(circuitBreaker);
+        BackendService service = new BackendService(circuitBreaker);
 
         callFailedUntilReachesThreshold(service);
         assertEquals("Hello World!", service.invokeGetMethod("/status/500"));
@@ -91,12 +106,12 @@ public class SimpleCircuitBreakerIT {
         long retryTimeout = 100L;
         SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
                 retryTimeout, fallbackMethod);
-        HttpbinService service = new HttpbinService(circuitBreaker);
+        BackendService service = new BackendService(circuitBreaker);
 
         callFailedUntilReachesThreshold(service);
         TimeUnit.MILLISECONDS.sleep(150L);
         assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
-        assertTrue(service.invokeGetMethod("/get").contains("https://httpbin.org/get"));
+        assertTrue(service.invokeGetMethod("/get").contains(stub.url("/get")));
         assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
         assertEquals(0, circuitBreaker.getFailureCount());
         assertEquals(0L, circuitBreaker.getLastFailureTime());
@@ -109,7 +124,7 @@ public class SimpleCircuitBreakerIT {
         long retryTimeout = 100L;
         SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
                 retryTimeout, fallbackMethod);
-        HttpbinService service = new HttpbinService(circuitBreaker);
+        BackendService service = new BackendService(circuitBreaker);
 
         callFailedUntilReachesThreshold(service);
         long timeFailureReachesThreshold = circuitBreaker.getLastFailureTime();
@@ -121,17 +136,64 @@ public class SimpleCircuitBreakerIT {
         assertTrue(circuitBreaker.getLastFailureTime() > timeFailureReachesThreshold);
     }
 
-    private static class HttpbinService {
-        private static final String URL_BASE = "https://httpbin.org";
+    @Test
+    public void circuitTripsAndRecoversAroundAnOutageUnderLoad() throws Exception {
+        System.out.println("Load Test - Circuit trips during a backend outage and recovers after it [Closed-Open-Closed]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .countBasedSlidingWindow(20)
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(50.0f)
+                .retryTimeout(200L)
+                .callTimeout(500L)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+        BackendService service = new BackendService(circuitBreaker);
+        stub.setLatency(LatencyDistribution.uniform(1L, 3L));
+
+        stub.scheduleOutage(1000L, 1000L);
+        LoadReport report = new LoadGenerator(() -> service.invokeGetMethod("/get"), circuitBreaker, 4, 200.0d,
+                3500L).run();
+        System.out.println(report);
+
+        long timeToTrip = report.getTimeToTrip(1000L);
+        long timeToRecover = report.getTimeToRecover(2000L);
+        System.out.println("Time to trip: " + timeToTrip + " ms, time to recover: " + timeToRecover + " ms");
+        assertTrue(timeToTrip >= 0L && timeToTrip < 1000L);
+        assertTrue(timeToRecover >= 0L && timeToRecover < 1000L);
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void ignoredClientErrorsDoNotTripTheCircuitUnderLoad() throws Exception {
+        System.out.println("Load Test - Ignored 4xx responses do not trip the circuit [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureThreshold(5)
+                .ignoreExceptions(HttpClientErrorException.class)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+        BackendService service = new BackendService(circuitBreaker);
+        stub.setErrorRate(0.3d, 400);
+
+        LoadReport report = new LoadGenerator(() -> service.invokeGetMethod("/get"), circuitBreaker, 4, 200.0d,
+                1000L).run();
+        System.out.println(report);
+
+        assertTrue(report.getErrors() > 0L);
+        assertTrue(report.getStateChanges().isEmpty());
+        assertEquals(0, circuitBreaker.getFailureCount());
+    }
 
+    private class BackendService {
         private final SimpleCircuitBreaker<String, String> circuitBreaker;
 
-        public HttpbinService(SimpleCircuitBreaker<String, String> circuitBreaker) {
+        public BackendService(SimpleCircuitBreaker<String, String> circuitBreaker) {
             this.circuitBreaker = circuitBreaker;
         }
 
         public String invokeGetMethod(String resourceUrl) {
-            return circuitBreaker.call(URL_BASE.concat(resourceUrl));
+            return circuitBreaker.call(stub.url(resourceUrl));
         }
 
         public SimpleCircuitBreaker<String, String> getCircuitBreaker() {
@@ -139,7 +201,7 @@ public class SimpleCircuitBreakerIT {
         }
     }
 
-    private void callFailedUntilBeingUnderThreshold(HttpbinService service) {
+    private void callFailedUntilBeingUnderThreshold(BackendService service) {
         SimpleCircuitBreaker<String, String> circuitBreaker = service.circuitBreaker;
         while (circuitBreaker.getFailureCount() < circuitBreaker.getFailureThreshold() - 1) {
             try {
@@ -150,7 +212,7 @@ public class SimpleCircuitBreakerIT {
         }
     }
 
-    private void callFailedUntilReachesThreshold(HttpbinService service) {
+    private void callFailedUntilReachesThreshold(BackendService service) {
         SimpleCircuitBreaker<String, String> circuitBreaker = service.circuitBreaker;
         while (circuitBreaker.getFailureCount() < circuitBreaker.getFailureThreshold()) {
             try {
@@ -3,19 +3,27 @@ package org.software.crafters.mx.microservices.patterns.circuitbreaker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SimpleCircuitBreakerTest {
 
     private Function<String, String> remoteCall;
     private Function<String, String> fallbackMethod;
+    private FakeTicker ticker;
 
     @BeforeEach
     public void setup() {
+        ticker = new FakeTicker();
         remoteCall = name -> {
             if (name != null) {
                 return String.format("Hello %s!", name);
@@ -78,11 +86,12 @@ public class SimpleCircuitBreakerTest {
         System.out.println("Test - Call in Half-Open state successfully [Goes to Closed state]");
         int failureThreshold = 3;
         long retryTimeout = 100L;
-        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
-                retryTimeout, fallbackMethod);
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().failureThreshold(failureThreshold).retryTimeout(retryTimeout)
+                        .ticker(ticker).build(), fallbackMethod);
 
         callFailedUntilReachesThreshold(circuitBreaker);
-        TimeUnit.MILLISECONDS.sleep(150L);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
         assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
         assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
         assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
@@ -95,12 +104,13 @@ public class SimpleCircuitBreakerTest {
         System.out.println("Test - Call in Half-Open state failed [Goes to Open state again]");
         int failureThreshold = 3;
         long retryTimeout = 100L;
-        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker(remoteCall, failureThreshold,
-                retryTimeout, fallbackMethod);
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().failureThreshold(failureThreshold).retryTimeout(retryTimeout)
+                        .ticker(ticker).build(), fallbackMethod);
 
         callFailedUntilReachesThreshold(circuitBreaker);
         long timeFailureReachesThreshold = circuitBreaker.getLastFailureTime();
-        TimeUnit.MILLISECONDS.sleep(150L);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
         assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
         assertEquals("Hello World!", circuitBreaker.call(null));
         assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
@@ -108,6 +118,389 @@ public class SimpleCircuitBreakerTest {
         assertTrue(circuitBreaker.getLastFailureTime() > timeFailureReachesThreshold);
     }
 
+    @Test
+    public void callFailedAndFailureRateIsUnderThreshold() {
+        System.out.println("Test - Call failed and failure rate is under the threshold [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .countBasedSlidingWindow(10)
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(50.0f)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        for (int i = 0; i < 6; i++) {
+            circuitBreaker.call("Gerardo");
+        }
+        callFailedTimes(circuitBreaker, 4);
+        assertEquals(40.0f, circuitBreaker.getFailureRate());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callFailedAndFailureRateReachesThreshold() {
+        System.out.println("Test - Call failed and failure rate reaches the threshold [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .countBasedSlidingWindow(10)
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(50.0f)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedTimes(circuitBreaker, 4);
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.call("Gerardo");
+        }
+        callFailedTimes(circuitBreaker, 1);
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals("Hello World!", circuitBreaker.call("Gerardo"));
+    }
+
+    @Test
+    public void countBasedWindowSmallerThanMinimumNumberOfCallsStillTrips() {
+        System.out.println("Test - Count based window smaller than the default minimum number of calls [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .countBasedSlidingWindow(10)
+                .failureRateThreshold(50.0f)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertEquals(10, config.getMinimumNumberOfCalls());
+        callFailedTimes(circuitBreaker, 9);
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        callFailedTimes(circuitBreaker, 1);
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void oldFailuresDecayOutOfTheWindow() {
+        System.out.println("Test - Old failures decay out of the sliding window [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .countBasedSlidingWindow(5)
+                .minimumNumberOfCalls(5)
+                .failureRateThreshold(60.0f)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        for (int i = 0; i < 100; i++) {
+            callFailedTimes(circuitBreaker, 1);
+            for (int j = 0; j < 4; j++) {
+                circuitBreaker.call("Gerardo");
+            }
+        }
+        assertEquals(100, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callInHalfOpenStateClosesAfterRequiredSuccessfulProbes() throws Exception {
+        System.out.println("Test - Call in Half-Open state closes after the required successful probes [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureThreshold(3)
+                .retryTimeout(100L)
+                .ticker(ticker)
+                .permittedNumberOfCallsInHalfOpenState(4)
+                .successRateThresholdInHalfOpenState(50.0f)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello World!", circuitBreaker.call(null));
+        assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void errorThrownByProbeReleasesItsPermit() {
+        System.out.println("Test - Error thrown by a Half-Open probe releases its permit [Closed state]");
+        Function<String, String> erroringCall = name -> {
+            if ("Error".equals(name)) {
+                throw new StackOverflowError("Remote call overflowed");
+            }
+            return remoteCall.apply(name);
+        };
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(erroringCall,
+                CircuitBreakerConfig.builder().failureThreshold(3).retryTimeout(100L).ticker(ticker).build(),
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertThrows(StackOverflowError.class, () -> circuitBreaker.call("Error"));
+        assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callInHalfOpenStateReopensWhenSuccessRateCannotBeReached() throws Exception {
+        System.out.println("Test - Call in Half-Open state reopens when the success rate cannot be reached [Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureThreshold(3)
+                .retryTimeout(100L)
+                .ticker(ticker)
+                .permittedNumberOfCallsInHalfOpenState(4)
+                .successRateThresholdInHalfOpenState(50.0f)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedUntilReachesThreshold(circuitBreaker);
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello World!", circuitBreaker.call(null));
+        assertEquals("Hello World!", circuitBreaker.call(null));
+        assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("Hello World!", circuitBreaker.call(null));
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(6, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    public void callOverrunningCallTimeoutIsRecordedAsFailure() {
+        System.out.println("Test - Call overrunning the call timeout is recorded as a failure [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().callTimeout(50L).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(name -> {
+            try {
+                TimeUnit.SECONDS.sleep(10L);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("Remote call interrupted", e);
+            }
+            return remoteCall.apply(name);
+        }, config, fallbackMethod);
+
+        assertThrows(CallTimeoutException.class, () -> circuitBreaker.call("Gerardo"));
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callIgnoringInterruptionIsRecordedAsTimeout() {
+        System.out.println("Test - Call ignoring interruption overruns the call timeout [Recorded as a timeout]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().callTimeout(50L).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(name -> {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200L);
+            while (System.nanoTime() < deadline) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(10L);
+                } catch (InterruptedException e) {
+                    System.out.println("Interruption ignored like a blocking socket read");
+                }
+            }
+            return remoteCall.apply(name);
+        }, config, fallbackMethod);
+
+        assertThrows(CallTimeoutException.class, () -> circuitBreaker.call("Gerardo"));
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callWithinCallTimeoutSuccessfully() {
+        System.out.println("Test - Call within the call timeout successfully [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().callTimeout(1000L).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void slowCallRateReachesThreshold() {
+        System.out.println("Test - Slow call rate reaches the threshold [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .countBasedSlidingWindow(4)
+                .minimumNumberOfCalls(4)
+                .slowCallDurationThreshold(20L)
+                .slowCallRateThreshold(50.0f)
+                .ticker(ticker)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(name -> {
+            if ("Slow".equals(name)) {
+                ticker.advance(30L, TimeUnit.MILLISECONDS);
+            }
+            return remoteCall.apply(name);
+        }, config, fallbackMethod);
+
+        circuitBreaker.call("Gerardo");
+        circuitBreaker.call("Gerardo");
+        circuitBreaker.call("Slow");
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals("Hello Slow!", circuitBreaker.call("Slow"));
+        assertEquals(50.0f, circuitBreaker.getSlowCallRate());
+        assertEquals(0, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callRejectedBySaturatedBulkheadCallsTheFallbackMethod() throws Exception {
+        System.out.println("Test - Call rejected by a saturated bulkhead [Calls the fallback method]");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().semaphoreBulkhead(1).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(name -> {
+            if ("Slow".equals(name)) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return remoteCall.apply(name);
+        }, config, fallbackMethod);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slowCall = executor.submit(() -> circuitBreaker.call("Slow"));
+            started.await(5, TimeUnit.SECONDS);
+            assertEquals("Hello World!", circuitBreaker.call("Gerardo"));
+            assertEquals(1L, circuitBreaker.getRejectedCount());
+            assertEquals(0, circuitBreaker.getFailureCount());
+            assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+            release.countDown();
+            assertEquals("Hello Slow!", slowCall.get(5, TimeUnit.SECONDS));
+            assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void callThroughThreadPoolBulkheadSuccessfully() {
+        System.out.println("Test - Call through a thread pool bulkhead successfully [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().threadPoolBulkhead(2, 10).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertThrows(IllegalArgumentException.class, () -> circuitBreaker.call(null));
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(0L, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void ignoredExceptionIsRethrownWithoutCountingAsFailure() {
+        System.out.println("Test - Ignored exception is rethrown without counting as a failure [Closed state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .ignoreExceptions(IllegalArgumentException.class)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertThrows(IllegalArgumentException.class, () -> circuitBreaker.call(null));
+        assertEquals(0, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void onlyRecordedExceptionsCountAsFailures() {
+        System.out.println("Test - Only recorded exceptions count as failures [Goes to Open state]");
+        Function<String, String> remoteCall = name -> {
+            if ("Gerardo".equals(name)) {
+                throw new IllegalStateException("Remote service unavailable");
+            }
+            throw new UnsupportedOperationException("Unknown name");
+        };
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureThreshold(2)
+                .recordExceptions(IllegalStateException.class)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertThrows(UnsupportedOperationException.class, () -> circuitBreaker.call("Ana"));
+        assertEquals(0, circuitBreaker.getFailureCount());
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.call("Gerardo"));
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.call("Gerardo"));
+        assertEquals(2, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void resultMatchingRecordResultPredicateCountsAsFailure() {
+        System.out.println("Test - Result matching the record result predicate counts as a failure [Goes to Open state]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .recordResult("Hello Error!"::equals)
+                .ticker(ticker)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals("Hello Error!", circuitBreaker.call("Error"));
+        assertEquals(1, circuitBreaker.getFailureCount());
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        ticker.advance(circuitBreaker.getRetryTimeout() + 1L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello World!", circuitBreaker.call("Error"));
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void reconfigureKeepsFailureCountAndAppliesNewThresholds() {
+        System.out.println("Test - Reconfigure keeps the failure count and applies the new thresholds [Goes to Open state later]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureThreshold(3)
+                .retryTimeout(100L)
+                .ticker(ticker)
+                .build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        callFailedTimes(circuitBreaker, 2);
+        circuitBreaker.reconfigure(CircuitBreakerConfig.from(config).failureThreshold(5).retryTimeout(1000L).build());
+        assertEquals(5, circuitBreaker.getFailureThreshold());
+        assertEquals(2, circuitBreaker.getFailureCount());
+
+        callFailedTimes(circuitBreaker, 2);
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        callFailedTimes(circuitBreaker, 1);
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals(SimpleCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        ticker.advance(900L, TimeUnit.MILLISECONDS);
+        assertEquals(SimpleCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void reconfigureRejectsStructuralChanges() {
+        System.out.println("Test - Reconfigure rejects changes that need a new breaker [Keeps the current config]");
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().countBasedSlidingWindow(10).build();
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall, config,
+                fallbackMethod);
+
+        assertThrows(IllegalArgumentException.class, () -> circuitBreaker.reconfigure(
+                CircuitBreakerConfig.from(config).countBasedSlidingWindow(20).build()));
+        assertThrows(IllegalArgumentException.class, () -> circuitBreaker.reconfigure(
+                CircuitBreakerConfig.from(config).semaphoreBulkhead(5).build()));
+        assertThrows(IllegalArgumentException.class, () -> circuitBreaker.reconfigure(null));
+        assertEquals(config, circuitBreaker.getConfig());
+    }
+
+    private void callFailedTimes(SimpleCircuitBreaker<String, String> circuitBreaker, int times) {
+        for (int i = 0; i < times; i++) {
+            try {
+                circuitBreaker.call(null);
+            } catch (Exception e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
     private void callFailedUntilBeingUnderThreshold(SimpleCircuitBreaker<String, String> circuitBreaker) {
         while (circuitBreaker.getFailureCount() < circuitBreaker.getFailureThreshold() - 1) {
             try {
@@ -0,0 +1,170 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.software.crafters.mx.microservices.patterns.circuitbreaker.SimpleCircuitBreaker.State;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StateSynchronizerTest {
+
+    private final Function<String, String> remoteCall = name -> {
+        if (name == null) {
+            throw new RuntimeException("Name cannot be null");
+        }
+        return String.format("Hello %s!", name);
+    };
+
+    private final Function<String, String> fallbackMethod = name -> "Hello World!";
+
+    @Test
+    public void peersOpenWhenOneNodeTrips() {
+        System.out.println("Test - Peers open when one node trips [OPEN]");
+        StateStore store = new LoopbackStateStore();
+        CircuitBreakerRegistry first = CircuitBreakerRegistry.ofDefaults();
+        CircuitBreakerRegistry second = CircuitBreakerRegistry.ofDefaults();
+        SimpleCircuitBreaker<String, String> tripped = first.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        SimpleCircuitBreaker<String, String> peer = second.circuitBreaker("greeting", remoteCall, fallbackMethod);
+
+        assertThrows(RuntimeException.class, () -> tripped.call(null));
+        new StateSynchronizer("first", first, store, 1000L).synchronize();
+        new StateSynchronizer("second", second, store, 1000L).synchronize();
+
+        assertEquals(State.OPEN, peer.getState());
+        assertEquals("Hello World!", peer.call("Gerardo"));
+        assertTrue(Math.abs(tripped.getLastFailureTime() - peer.getLastFailureTime()) <= 1L);
+    }
+
+    @Test
+    public void peersDeferProbesWhileOneNodeProbes() {
+        System.out.println("Test - Peers defer their probes while one node probes [HALF_OPEN]");
+        StateStore store = new LoopbackStateStore();
+        CircuitBreakerRegistry first = CircuitBreakerRegistry.ofDefaults();
+        CircuitBreakerRegistry second = CircuitBreakerRegistry.ofDefaults();
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().retryTimeout(100L).ticker(ticker).build();
+        SimpleCircuitBreaker<String, String> prober = first.circuitBreaker("greeting", "default",
+                c -> new SimpleCircuitBreaker<>(remoteCall, config, fallbackMethod));
+        SimpleCircuitBreaker<String, String> peer = second.circuitBreaker("greeting", "default",
+                c -> new SimpleCircuitBreaker<>(remoteCall, config, fallbackMethod));
+        assertThrows(RuntimeException.class, () -> prober.call(null));
+        assertThrows(RuntimeException.class, () -> peer.call(null));
+
+        ticker.advance(150L, TimeUnit.MILLISECONDS);
+        assertEquals(State.HALF_OPEN, prober.stateMachine.tryAcquirePermission(prober.now()));
+        new StateSynchronizer("first", first, store, 1000L).synchronize();
+        new StateSynchronizer("second", second, store, 1000L).synchronize();
+
+        assertEquals(State.OPEN, peer.getState());
+        assertEquals("Hello World!", peer.call("Gerardo"));
+    }
+
+    @Test
+    public void recoveredNodeIgnoresPeersStillOpenFromTheSameOutage() {
+        System.out.println("Test - A recovered node ignores peers still OPEN from the outage it recovered from [CLOSED]");
+        StateStore store = new LoopbackStateStore();
+        CircuitBreakerRegistry first = CircuitBreakerRegistry.ofDefaults();
+        CircuitBreakerRegistry second = CircuitBreakerRegistry.ofDefaults();
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().retryTimeout(100L).ticker(ticker).build();
+        SimpleCircuitBreaker<String, String> recovered = first.circuitBreaker("greeting", "default",
+                c -> new SimpleCircuitBreaker<>(remoteCall, config, fallbackMethod));
+        SimpleCircuitBreaker<String, String> peer = second.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        assertThrows(RuntimeException.class, () -> peer.call(null));
+        new StateSynchronizer("second", second, store, 1000L).synchronize();
+        new StateSynchronizer("first", first, store, 1000L).synchronize();
+        assertEquals(State.OPEN, recovered.getState());
+
+        ticker.advance(1000L, TimeUnit.MILLISECONDS);
+        assertEquals("Hello Gerardo!", recovered.call("Gerardo"));
+        assertEquals(State.CLOSED, recovered.getState());
+        new StateSynchronizer("second", second, store, 1000L).synchronize();
+        new StateSynchronizer("first", first, store, 1000L).synchronize();
+
+        assertEquals(State.OPEN, peer.getState());
+        assertEquals(State.CLOSED, recovered.getState());
+    }
+
+    @Test
+    public void peersOpenOnTheFailureRateOfTheFleet() {
+        System.out.println("Test - Peers open on the failure rate of the whole fleet");
+        StateStore store = new LoopbackStateStore();
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().countBasedSlidingWindow(10)
+                .minimumNumberOfCalls(6).failureRateThreshold(50.0f).build();
+        CircuitBreakerRegistry first = CircuitBreakerRegistry.builder().defaultConfig(config).build();
+        CircuitBreakerRegistry second = CircuitBreakerRegistry.builder().defaultConfig(config).build();
+        SimpleCircuitBreaker<String, String> local = first.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        SimpleCircuitBreaker<String, String> peer = second.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        local.call("Gerardo");
+        assertThrows(RuntimeException.class, () -> local.call(null));
+        assertThrows(RuntimeException.class, () -> local.call(null));
+        peer.call("Gerardo");
+        assertThrows(RuntimeException.class, () -> peer.call(null));
+        assertThrows(RuntimeException.class, () -> peer.call(null));
+
+        StateSynchronizer synchronizer = new StateSynchronizer("first", first, store, 1000L);
+        synchronizer.synchronize();
+        assertEquals(State.CLOSED, local.getState());
+        new StateSynchronizer("second", second, store, 1000L).synchronize();
+        synchronizer.synchronize();
+
+        assertEquals(State.OPEN, peer.getState());
+        assertEquals(State.OPEN, local.getState());
+    }
+
+    @Test
+    public void healthyPeersCountInTheFailureRateOfTheFleet() {
+        System.out.println("Test - Healthy peers count in the failure rate of the whole fleet [CLOSED]");
+        StateStore store = new LoopbackStateStore();
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().countBasedSlidingWindow(100)
+                .minimumNumberOfCalls(6).failureRateThreshold(50.0f).build();
+        CircuitBreakerRegistry first = CircuitBreakerRegistry.builder().defaultConfig(config).build();
+        CircuitBreakerRegistry second = CircuitBreakerRegistry.builder().defaultConfig(config).build();
+        CircuitBreakerRegistry third = CircuitBreakerRegistry.builder().defaultConfig(config).build();
+        SimpleCircuitBreaker<String, String> local = first.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        SimpleCircuitBreaker<String, String> failing = second.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        SimpleCircuitBreaker<String, String> healthy = third.circuitBreaker("greeting", remoteCall, fallbackMethod);
+        local.call("Gerardo");
+        assertThrows(RuntimeException.class, () -> local.call(null));
+        assertThrows(RuntimeException.class, () -> local.call(null));
+        failing.call("Gerardo");
+        failing.call("Gerardo");
+        assertThrows(RuntimeException.class, () -> failing.call(null));
+        for (int i = 0; i < 50; i++) {
+            healthy.call("Gerardo");
+        }
+
+        new StateSynchronizer("second", second, store, 1000L).synchronize();
+        new StateSynchronizer("third", third, store, 1000L).synchronize();
+        new StateSynchronizer("first", first, store, 1000L).synchronize();
+
+        assertEquals(State.CLOSED, local.getState());
+    }
+
+    @Test
+    public void fileStoreRoundTripsBatches(@TempDir Path directory) {
+        System.out.println("Test - File state store round trips the batch of every node");
+        StateStore first = new FileStateStore(directory);
+        StateStore second = new FileStateStore(directory);
+
+        first.publish("first", List.of(new BreakerStateSummary("first", "tenant/a b", State.OPEN, 10, 7, 42L, 43L)));
+        second.publish("second", List.of());
+        first.publish("first", List.of(new BreakerStateSummary("first", "tenant/a b", State.HALF_OPEN, 0, 0, 42L, 44L)));
+
+        List<BreakerStateSummary> summaries = second.fetch();
+        assertEquals(1, summaries.size());
+        assertEquals("first", summaries.get(0).getNodeId());
+        assertEquals("tenant/a b", summaries.get(0).getName());
+        assertEquals(State.HALF_OPEN, summaries.get(0).getState());
+        assertEquals(42L, summaries.get(0).getLastFailureTime());
+        assertEquals(44L, summaries.get(0).getPublishedAt());
+        assertThrows(IllegalArgumentException.class, () -> first.publish("../escape", List.of()));
+    }
+}
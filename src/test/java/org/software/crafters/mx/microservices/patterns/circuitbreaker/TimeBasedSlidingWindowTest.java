@@ -0,0 +1,58 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TimeBasedSlidingWindowTest {
+
+    @Test
+    public void recordOutcomesWithinWindow() {
+        System.out.println("Test - Record outcomes within the window");
+        TimeBasedSlidingWindow slidingWindow = new TimeBasedSlidingWindow(5);
+
+        slidingWindow.record(true, false, 10_000L);
+        slidingWindow.record(false, false, 11_500L);
+        slidingWindow.record(false, false, 12_000L);
+        slidingWindow.record(true, false, 14_999L);
+        assertEquals(4, slidingWindow.getNumberOfCalls(14_999L));
+        assertEquals(2, slidingWindow.getNumberOfFailedCalls(14_999L));
+        assertEquals(50.0f, slidingWindow.getFailureRate(14_999L));
+    }
+
+    @Test
+    public void outcomesOlderThanWindowAreIgnored() {
+        System.out.println("Test - Outcomes older than the window are ignored");
+        TimeBasedSlidingWindow slidingWindow = new TimeBasedSlidingWindow(5);
+
+        slidingWindow.record(true, false, 10_000L);
+        slidingWindow.record(true, false, 11_000L);
+        slidingWindow.record(false, false, 15_000L);
+        assertEquals(2, slidingWindow.getNumberOfCalls(15_000L));
+        assertEquals(1, slidingWindow.getNumberOfFailedCalls(15_000L));
+        assertEquals(0, slidingWindow.getNumberOfCalls(30_000L));
+    }
+
+    @Test
+    public void bucketIsReusedForNewSecond() {
+        System.out.println("Test - Bucket is reused when the ring wraps around");
+        TimeBasedSlidingWindow slidingWindow = new TimeBasedSlidingWindow(2);
+
+        slidingWindow.record(true, false, 10_000L);
+        slidingWindow.record(false, false, 12_000L);
+        assertEquals(1, slidingWindow.getNumberOfCalls(12_000L));
+        assertEquals(0, slidingWindow.getNumberOfFailedCalls(12_000L));
+    }
+
+    @Test
+    public void recordSlowOutcomes() {
+        System.out.println("Test - Record slow outcomes");
+        TimeBasedSlidingWindow slidingWindow = new TimeBasedSlidingWindow(5);
+
+        slidingWindow.record(false, true, 10_000L);
+        slidingWindow.record(true, false, 11_000L);
+        assertEquals(1, slidingWindow.getNumberOfSlowCalls(11_000L));
+        assertEquals(50.0f, slidingWindow.getSlowCallRate(11_000L));
+        assertEquals(0, slidingWindow.getNumberOfSlowCalls(15_000L));
+    }
+}
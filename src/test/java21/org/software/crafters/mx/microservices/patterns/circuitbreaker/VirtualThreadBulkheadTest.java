@@ -0,0 +1,56 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadBulkheadTest {
+
+    @Test
+    public void remoteCallRunsOnVirtualThread() {
+        System.out.println("Virtual Thread Test - Remote call runs on a virtual thread [Closed state]");
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(
+                name -> Thread.currentThread().isVirtual() ? "Hello " + name + "!" : "Platform thread",
+                CircuitBreakerConfig.builder().virtualThreadBulkhead(10).build(), arg -> "Hello World!");
+
+        assertEquals("Hello Gerardo!", circuitBreaker.call("Gerardo"));
+        assertEquals(SimpleCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void callsOverTheLimitAreRejectedToTheFallback() throws Exception {
+        System.out.println("Virtual Thread Test - Calls over the limit go to the fallback [Closed state]");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, String> remoteCall = name -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Hello " + name + "!";
+        };
+        SimpleCircuitBreaker<String, String> circuitBreaker = new SimpleCircuitBreaker<>(remoteCall,
+                CircuitBreakerConfig.builder().virtualThreadBulkhead(1).build(), arg -> "Hello World!");
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> blocked = callers.submit(() -> circuitBreaker.call("Gerardo"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals("Hello World!", circuitBreaker.call("Ana"));
+            assertEquals(1L, circuitBreaker.getRejectedCount());
+            release.countDown();
+            assertEquals("Hello Gerardo!", blocked.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, circuitBreaker.getFailureCount());
+    }
+}
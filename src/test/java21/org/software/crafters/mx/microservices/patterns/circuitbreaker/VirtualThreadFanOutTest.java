@@ -0,0 +1,61 @@
+package org.software.crafters.mx.microservices.patterns.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VirtualThreadFanOutTest {
+
+    @Test
+    public void resultsAreReturnedInCallOrder() {
+        System.out.println("Fan-Out Test - Results are returned in call order");
+        SimpleCircuitBreaker<String, String> greetings = new SimpleCircuitBreaker<>(
+                name -> String.format("Hello %s!", name), arg -> "Hello World!");
+        List<Supplier<String>> calls = List.of(() -> greetings.call("Gerardo"), () -> greetings.call("Ana"));
+
+        assertEquals(List.of("Hello Gerardo!", "Hello Ana!"), VirtualThreadFanOut.invokeAll(calls, 5_000L));
+    }
+
+    @Test
+    public void firstFailureCancelsTheRemainingCalls() {
+        System.out.println("Fan-Out Test - The first failure cancels the remaining calls");
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<Supplier<String>> calls = List.of(() -> {
+            try {
+                Thread.sleep(60_000L);
+                return "Hello Gerardo!";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        }, () -> {
+            throw new IllegalArgumentException("Invalid argument: name cannot be null");
+        });
+
+        assertThrows(IllegalArgumentException.class, () -> VirtualThreadFanOut.invokeAll(calls, 60_000L));
+        assertEquals(0L, interrupted.getCount());
+    }
+
+    @Test
+    public void deadlineCancelsTheRunningCalls() {
+        System.out.println("Fan-Out Test - The deadline cancels the running calls");
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<Supplier<String>> calls = List.of(() -> "Hello Gerardo!", () -> {
+            try {
+                Thread.sleep(60_000L);
+                return "Hello Ana!";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThrows(CallTimeoutException.class, () -> VirtualThreadFanOut.invokeAll(calls, 50L));
+        assertEquals(0L, interrupted.getCount());
+    }
+}